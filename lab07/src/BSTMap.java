@@ -1,30 +1,81 @@
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+/**
+ * A binary search tree-backed Map implementation.
+ * <p>
+ * By default new keys are attached below the node where a search for them
+ * ends, and the tree is never rebalanced, so keys put in sorted order build
+ * a tree as deep as it is big. A BSTMap constructed with balanced set is a
+ * left-leaning red-black tree instead: put() rotates and recolors the nodes
+ * on the path back up from a new node, which keeps the height below
+ * 2 lg(N + 1) whatever the order of insertion.
+ * <p>
+ * Every node also records the size of its subtree, so that the ordered
+ * queries floorKey(), ceilingKey(), rank(), select() and rangeCount() take
+ * a single walk down the tree, and range() iterates over the keys between
+ * two bounds without visiting the ones outside them. All of them take time
+ * proportional to the height, O(log N) for a balanced tree, plus the number
+ * of keys a range returns.
+ * <p>
+ * iterator(), keySet(), entrySet() and forEach() visit keys in increasing
+ * order, walking the tree in place with a stack as deep as the tree. They
+ * are fail-fast: adding or removing keys during a scan makes it throw a
+ * ConcurrentModificationException.
+ */
 public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
     int size = 0;
     BSTNode rootNode;
+    /** Counts structural modifications, so that scans can fail fast. */
+    private int modCount = 0;
+    /** Whether the tree is kept balanced as a left-leaning red-black tree. */
+    private final boolean balanced;
+    /** The nodes above the one findOrParent() last returned, root first, so
+     * that attach() can update their sizes without descending again. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BSTNode[] path = (BSTNode[]) new BSTMap.BSTNode[16];
+    private int pathLength = 0;
+    /** The key of the last findOrParent(), since a mapping function may search for another. */
+    private K pathKey;
+
+    public BSTMap() {
+        this(false);
+    }
+
+    /**
+     * BSTMap constructor that can keep the tree balanced.
+     *
+     * @param balanced whether put() should rebalance the tree, so that it
+     *                 stays O(log N) deep even for sorted keys
+     */
+    public BSTMap(boolean balanced) {
+        this.balanced = balanced;
+    }
 
     @Override
     public void put(K k, V v) {
-        if (rootNode != null) {
-            BSTNode lookup = rootNode.getLast(k);
-            // lookup can never be null
-            int compareResult = k.compareTo(lookup.key);
-            if (compareResult == 0) {
-                lookup.value = v;
-            } else if (compareResult < 0) {
-                lookup.leftChild = new BSTNode(k, v, null, null);
-                size += 1;
-            } else if (compareResult > 0) {
-                lookup.rightChild = new BSTNode(k, v, null, null);
-                size += 1;
-
-            }
+        if (balanced) {
+            // a single descent, which replaces the value if K is present
+            rootNode = insert(rootNode, k, v);
+            rootNode.red = false;
+            return;
+        }
+        BSTNode lookup = findOrParent(k);
+        if (lookup != null && k.compareTo(lookup.key) == 0) {
+            lookup.value = v;
         } else {
-            rootNode = new BSTNode(k, v, null, null);
-            size += 1;
-
+            attach(lookup, k, v);
         }
     }
 
@@ -58,11 +109,399 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
     public void clear() {
         size = 0;
         rootNode = null;
+        Arrays.fill(path, null);
+        pathLength = 0;
+        pathKey = null;
+        modCount += 1;
     }
 
+    /** Returns a Set view of the keys in increasing order. The view is backed
+     * by the tree and does not copy it. */
     @Override
     public Set<K> keySet() {
-        throw new UnsupportedOperationException();
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return BSTMap.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                try {
+                    return o != null && containsKey((K) o);
+                } catch (ClassCastException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    /** Returns a Set view of the mappings in increasing key order. The
+     * entries are the tree's own nodes, and setValue() writes through. */
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new BSTIterator<>() {
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        return nextNode();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Calls ACTION on every key and value in increasing key order. Throws
+     * ConcurrentModificationException if ACTION adds or removes keys.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, V> entry : entrySet()) {
+            action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /* The update operations below descend the tree once, to the key's node
+     * or to the leaf that a new node for it would hang from, and remember the
+     * path so that adding a new key needs no second descent. A balanced tree
+     * descends again to add a new key, rebalancing on the way back up. */
+
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        BSTNode findNode = rootNode == null ? null : rootNode.get(key);
+        return findNode == null ? defaultValue : findNode.value;
+    }
+
+    @Override
+    public V putIfAbsent(K k, V v) {
+        BSTNode lookup = findOrParent(k);
+        if (lookup == null || k.compareTo(lookup.key) != 0) {
+            attach(lookup, k, v);
+            return null;
+        }
+        V old = lookup.value;
+        if (old == null) {
+            lookup.value = v;
+        }
+        return old;
+    }
+
+    @Override
+    public V computeIfAbsent(K k, Function<? super K, ? extends V> mappingFunction) {
+        BSTNode lookup = findOrParent(k);
+        boolean found = lookup != null && k.compareTo(lookup.key) == 0;
+        if (found && lookup.value != null) {
+            return lookup.value;
+        }
+        int expectedModCount = modCount;
+        V v = mappingFunction.apply(k);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (v != null) {
+            if (found) {
+                lookup.value = v;
+            } else {
+                attach(lookup, k, v);
+            }
+        }
+        return v;
+    }
+
+    /** Same as Map61B.merge(). Throws UnsupportedOperationException if
+     * REMAPPINGFUNCTION returns null, since BSTMap can't remove keys. */
+    @Override
+    public V merge(K k, V v, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(v);
+        BSTNode lookup = findOrParent(k);
+        if (lookup == null || k.compareTo(lookup.key) != 0) {
+            attach(lookup, k, v);
+            return v;
+        }
+        V newValue = v;
+        if (lookup.value != null) {
+            int expectedModCount = modCount;
+            newValue = remappingFunction.apply(lookup.value, v);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        if (newValue == null) {
+            remove(k);
+            return null;
+        }
+        lookup.value = newValue;
+        return newValue;
+    }
+
+    @Override
+    public V adjustOrPut(K k, Function<? super V, ? extends V> adjust, V putValue) {
+        BSTNode lookup = findOrParent(k);
+        if (lookup == null || k.compareTo(lookup.key) != 0) {
+            attach(lookup, k, putValue);
+            return putValue;
+        }
+        int expectedModCount = modCount;
+        V newValue = adjust.apply(lookup.value);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        lookup.value = newValue;
+        return newValue;
+    }
+
+    /** Returns the node holding K, or else the node a new node for K would be
+     * a child of, or null if the tree is empty. */
+    private BSTNode findOrParent(K k) {
+        if (k == null) {
+            throw new NullPointerException("Search key can not be null");
+        }
+        pathKey = k;
+        pathLength = 0;
+        BSTNode last = null;
+        for (BSTNode node = rootNode; node != null; ) {
+            int cmp = k.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            if (pathLength == path.length) {
+                path = Arrays.copyOf(path, 2 * pathLength);
+            }
+            path[pathLength++] = node;
+            last = node;
+            node = cmp < 0 ? node.leftChild : node.rightChild;
+        }
+        return last;
+    }
+
+    /** Adds a node for K, which is not in the tree, as a child of PARENT as
+     * returned by findOrParent(K). Adds it to the sizes on the path that
+     * call recorded, unless a mapping function has searched for another key
+     * since, in which case it records the path again. */
+    private void attach(BSTNode parent, K k, V v) {
+        if (balanced) {
+            rootNode = insert(rootNode, k, v);
+            rootNode.red = false;
+            return;
+        }
+        if (pathKey != k) {
+            findOrParent(k);
+        }
+        for (int i = 0; i < pathLength; i++) {
+            path[i].subtreeSize += 1;
+        }
+        BSTNode node = new BSTNode(k, v, null, null);
+        if (parent == null) {
+            rootNode = node;
+        } else if (k.compareTo(parent.key) < 0) {
+            parent.leftChild = node;
+        } else {
+            parent.rightChild = node;
+        }
+        size += 1;
+        modCount += 1;
+    }
+
+    /**
+     * Puts K into the red-black subtree rooted at H, and returns the new
+     * root of that subtree. Recurses once per level, which is O(log N) deep
+     * since the tree is balanced.
+     */
+    private BSTNode insert(BSTNode h, K k, V v) {
+        if (h == null) {
+            size += 1;
+            modCount += 1;
+            return new BSTNode(k, v, null, null);
+        }
+        int cmp = k.compareTo(h.key);
+        if (cmp < 0) {
+            h.leftChild = insert(h.leftChild, k, v);
+        } else if (cmp > 0) {
+            h.rightChild = insert(h.rightChild, k, v);
+        } else {
+            h.value = v;
+            return h;
+        }
+        h.subtreeSize = 1 + sizeOf(h.leftChild) + sizeOf(h.rightChild);
+        if (isRed(h.rightChild) && !isRed(h.leftChild)) {
+            h = rotateLeft(h);
+        }
+        if (isRed(h.leftChild) && isRed(h.leftChild.leftChild)) {
+            h = rotateRight(h);
+        }
+        if (isRed(h.leftChild) && isRed(h.rightChild)) {
+            h.red = true;
+            h.leftChild.red = false;
+            h.rightChild.red = false;
+        }
+        return h;
+    }
+
+    private boolean isRed(BSTNode node) {
+        return node != null && node.red;
+    }
+
+    private BSTNode rotateLeft(BSTNode h) {
+        BSTNode x = h.rightChild;
+        h.rightChild = x.leftChild;
+        x.leftChild = h;
+        x.red = h.red;
+        h.red = true;
+        x.subtreeSize = h.subtreeSize;
+        h.subtreeSize = 1 + sizeOf(h.leftChild) + sizeOf(h.rightChild);
+        return x;
+    }
+
+    private BSTNode rotateRight(BSTNode h) {
+        BSTNode x = h.leftChild;
+        h.leftChild = x.rightChild;
+        x.rightChild = h;
+        x.red = h.red;
+        h.red = true;
+        x.subtreeSize = h.subtreeSize;
+        h.subtreeSize = 1 + sizeOf(h.leftChild) + sizeOf(h.rightChild);
+        return x;
+    }
+
+    private int sizeOf(BSTNode node) {
+        return node == null ? 0 : node.subtreeSize;
+    }
+
+    /** Returns the largest key less than or equal to K, or null if there is none. */
+    public K floorKey(K k) {
+        BSTNode floor = null;
+        for (BSTNode node = rootNode; node != null; ) {
+            int cmp = k.compareTo(node.key);
+            if (cmp == 0) {
+                return node.key;
+            } else if (cmp < 0) {
+                node = node.leftChild;
+            } else {
+                floor = node;
+                node = node.rightChild;
+            }
+        }
+        return floor == null ? null : floor.key;
+    }
+
+    /** Returns the smallest key greater than or equal to K, or null if there is none. */
+    public K ceilingKey(K k) {
+        BSTNode ceiling = null;
+        for (BSTNode node = rootNode; node != null; ) {
+            int cmp = k.compareTo(node.key);
+            if (cmp == 0) {
+                return node.key;
+            } else if (cmp > 0) {
+                node = node.rightChild;
+            } else {
+                ceiling = node;
+                node = node.leftChild;
+            }
+        }
+        return ceiling == null ? null : ceiling.key;
+    }
+
+    /** Returns the number of keys less than K. K need not be in the map. */
+    public int rank(K k) {
+        int rank = 0;
+        for (BSTNode node = rootNode; node != null; ) {
+            int cmp = k.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.leftChild;
+            } else if (cmp > 0) {
+                rank += 1 + sizeOf(node.leftChild);
+                node = node.rightChild;
+            } else {
+                return rank + sizeOf(node.leftChild);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the key of rank I, the (I + 1)th smallest. Throws
+     * IllegalArgumentException unless 0 <= I < size().
+     */
+    public K select(int i) {
+        if (i < 0 || i >= size) {
+            throw new IllegalArgumentException("rank " + i + " out of range for size " + size);
+        }
+        BSTNode node = rootNode;
+        while (true) {
+            int leftSize = sizeOf(node.leftChild);
+            if (i < leftSize) {
+                node = node.leftChild;
+            } else if (i > leftSize) {
+                i -= leftSize + 1;
+                node = node.rightChild;
+            } else {
+                return node.key;
+            }
+        }
+    }
+
+    /** Returns the number of keys between LO and HI, inclusive. */
+    public int rangeCount(K lo, K hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        }
+        return rank(hi) - rank(lo) + (containsKey(hi) ? 1 : 0);
+    }
+
+    /**
+     * Returns the keys between LO and HI, inclusive, in increasing order.
+     * The iterator finds its first key when it is created and each next key
+     * as it goes, holding only a path of the tree at a time, and is fail-fast
+     * like iterator().
+     */
+    public Iterable<K> range(K lo, K hi) {
+        Objects.requireNonNull(lo);
+        Objects.requireNonNull(hi);
+        return () -> new BSTIterator<>(lo, hi) {
+            @Override
+            public K next() {
+                return nextNode().key;
+            }
+        };
+    }
+
+    /** Returns whether put() keeps this tree balanced. */
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    /** Returns the number of nodes on the longest path from the root to a leaf. */
+    int height() {
+        int height = 0;
+        Deque<BSTNode> level = new ArrayDeque<>();
+        if (rootNode != null) {
+            level.add(rootNode);
+        }
+        while (!level.isEmpty()) {
+            height += 1;
+            for (int n = level.size(); n > 0; n--) {
+                BSTNode node = level.poll();
+                if (node.leftChild != null) {
+                    level.add(node.leftChild);
+                }
+                if (node.rightChild != null) {
+                    level.add(node.rightChild);
+                }
+            }
+        }
+        return height;
     }
 
     @Override
@@ -73,14 +512,77 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
 
     @Override
     public Iterator<K> iterator() {
-        throw new UnsupportedOperationException();
+        return new BSTIterator<>() {
+            @Override
+            public K next() {
+                return nextNode().key;
+            }
+        };
+    }
+
+    /**
+     * In-order traversal that keeps the path of pending ancestors on a stack.
+     * It can be limited to the keys between two bounds: ancestors below the
+     * lower bound are never pushed, and the traversal ends at the first key
+     * above the upper bound.
+     */
+    private abstract class BSTIterator<T> implements Iterator<T> {
+        private final Deque<BSTNode> stack = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+        /** The largest key to return, or null for no limit. */
+        private final K hi;
+
+        BSTIterator() {
+            hi = null;
+            pushLeft(rootNode);
+        }
+
+        /** Iterates over the keys from LO to HI, inclusive. */
+        BSTIterator(K lo, K hi) {
+            this.hi = hi;
+            for (BSTNode node = rootNode; node != null; ) {
+                if (lo.compareTo(node.key) <= 0) {
+                    stack.push(node);
+                    node = node.leftChild;
+                } else {
+                    node = node.rightChild;
+                }
+            }
+        }
+
+        private void pushLeft(BSTNode node) {
+            for (; node != null; node = node.leftChild) {
+                stack.push(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || stack.peek().key.compareTo(hi) <= 0);
+        }
+
+        BSTNode nextNode() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BSTNode node = stack.pop();
+            pushLeft(node.rightChild);
+            return node;
+        }
     }
 
-    private class BSTNode {
+    private class BSTNode implements Map.Entry<K, V> {
         K key;
         V value;
         BSTNode leftChild;
         BSTNode rightChild;
+        /** Whether the link from this node's parent is red. Only used by a balanced tree. */
+        boolean red = true;
+        /** Number of nodes in the subtree rooted here, including this one. */
+        int subtreeSize = 1;
 
         BSTNode(K k, V v, BSTNode l, BSTNode r) {
             key = k;
@@ -89,46 +591,52 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
             rightChild = r;
         }
 
+        /** Returns the node holding K in the subtree rooted here, or null. */
         BSTNode get(K k) {
             if (k == null) {
                 throw new NullPointerException("Search key can not be null");
             }
+            BSTNode node = this;
+            while (node != null) {
+                int comp = k.compareTo(node.key);
+                if (comp < 0) {
+                    node = node.leftChild;
+                } else if (comp > 0) {
+                    node = node.rightChild;
+                } else {
+                    return node;
+                }
+            }
+            return null;
+        }
 
-            int comp = k.compareTo(key);
+        @Override
+        public K getKey() {
+            return key;
+        }
 
-            if (comp < 0 && leftChild != null) {
-                return leftChild.get(k);
-            } else if (comp == 0) {
-                return this;
-            } else if (comp > 0 && rightChild != null) {
-                return rightChild.get(k);
-            } else {
-                return null;
-            }
+        @Override
+        public V getValue() {
+            return value;
         }
 
-        /**
-         * Though it's called get "Leaf", it only returns leaf when k does not exist.
-         *
-         * @param k
-         * @return If k exists, return the exact node. If k does not exist, return the leaf node.
-         */
-        BSTNode getLast(K k) {
-            if (k == null) {
-                throw new NullPointerException("Search key can not be null");
-            }
+        @Override
+        public V setValue(V v) {
+            V old = value;
+            value = v;
+            return old;
+        }
 
-            int compareResult = k.compareTo(key);
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Map.Entry<?, ?> other
+                    && key.equals(other.getKey())
+                    && Objects.equals(value, other.getValue());
+        }
 
-            if (compareResult < 0 && leftChild != null) {
-                return leftChild.getLast(k);
-            } else if (compareResult == 0) {
-                return this;
-            } else if (compareResult > 0 && rightChild != null) {
-                return rightChild.getLast(k);
-            } else {
-                return this;
-            }
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
         }
 
         boolean hasLeftChild() {
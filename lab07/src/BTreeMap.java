@@ -0,0 +1,340 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An ordered Map implementation backed by a B+ tree.
+ * <p>
+ * Every node holds up to FANOUT sorted keys in one array, and is searched
+ * with a binary search. Values are only kept in the leaves; an inner node
+ * holds FANOUT - 1 separator keys and FANOUT children, where separator i is
+ * the smallest key under child i + 1. A tree of N keys is about
+ * log_FANOUT(N) levels deep, so a lookup follows a few child pointers
+ * instead of one per comparison as in BSTMap, and reads each node's keys
+ * from one contiguous array.
+ * <p>
+ * A node that overflows is split in half, and its right half added to its
+ * parent, which may split in turn; a split root makes the tree one level
+ * deeper. put() remembers the path it descended, so no node needs a parent
+ * pointer, and nothing recurses.
+ * <p>
+ * The leaves are linked in key order, so iterator() and keySet() walk the
+ * leaves from left to right without touching the inner nodes. They are
+ * fail-fast: adding or removing keys during a scan makes it throw a
+ * ConcurrentModificationException.
+ * <p>
+ * remove() takes the key out of its leaf but never merges underfull nodes,
+ * so the tree does not shrink until clear() is called.
+ */
+public class BTreeMap<K extends Comparable<K>, V> implements Map61B<K, V> {
+
+    /** Keys per node by default: with compressed references, two cache lines of key pointers. */
+    static final int DEFAULT_FANOUT = 32;
+
+    private final int fanout;
+    private Node root;
+    /** The leftmost leaf, where iteration starts. */
+    private Leaf firstLeaf;
+    /** Number of inner nodes on the path from the root to any leaf. */
+    private int height;
+    private int size;
+    /** Counts structural modifications, so that scans can fail fast. */
+    private int modCount;
+
+    /* Nodes hold their keys in arrays with one spare slot, so that a full
+     * node can take one more key and then be split. */
+
+    private abstract static class Node {
+        final Object[] keys;
+        int count;
+
+        Node(int capacity) {
+            keys = new Object[capacity + 1];
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] values;
+        Leaf next;
+
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity + 1];
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int capacity) {
+            super(capacity);
+            children = new Node[capacity + 2];
+        }
+    }
+
+    public BTreeMap() {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * BTreeMap constructor with a given node size.
+     *
+     * @param fanout most keys in a leaf, and most children of an inner node; at least 3
+     */
+    public BTreeMap(int fanout) {
+        if (fanout < 3) {
+            throw new IllegalArgumentException("fanout must be at least 3");
+        }
+        this.fanout = fanout;
+        clear();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("Search key can not be null");
+        }
+        Inner[] path = new Inner[height];
+        int[] childIx = new int[height];
+        Node node = root;
+        for (int depth = 0; depth < height; depth++) {
+            Inner inner = (Inner) node;
+            path[depth] = inner;
+            childIx[depth] = childIndex(inner, key);
+            node = inner.children[childIx[depth]];
+        }
+        Leaf leaf = (Leaf) node;
+        int ix = search(leaf, key);
+        if (ix >= 0) {
+            leaf.values[ix] = value;
+            return;
+        }
+        ix = -ix - 1;
+        insertAt(leaf.keys, leaf.count, ix, key);
+        insertAt(leaf.values, leaf.count, ix, value);
+        leaf.count++;
+        size++;
+        modCount++;
+        if (leaf.count > fanout) {
+            splitLeaf(leaf, path, childIx);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Leaf leaf = findLeaf(key);
+        int ix = search(leaf, key);
+        return ix < 0 ? null : (V) leaf.values[ix];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        Leaf leaf = findLeaf(key);
+        return search(leaf, key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        firstLeaf = new Leaf(fanout);
+        root = firstLeaf;
+        height = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /** Returns a Set view of the keys in increasing order. The view is backed
+     * by the tree and does not copy it. */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return BTreeMap.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                try {
+                    return o != null && containsKey((K) o);
+                } catch (ClassCastException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        Leaf leaf = findLeaf(key);
+        int ix = search(leaf, key);
+        if (ix < 0) {
+            return null;
+        }
+        V old = (V) leaf.values[ix];
+        leaf.count--;
+        System.arraycopy(leaf.keys, ix + 1, leaf.keys, ix, leaf.count - ix);
+        System.arraycopy(leaf.values, ix + 1, leaf.values, ix, leaf.count - ix);
+        leaf.keys[leaf.count] = null;
+        leaf.values[leaf.count] = null;
+        size--;
+        modCount++;
+        return old;
+    }
+
+    /** Returns an iterator over the keys in increasing order, following the leaf links. */
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private Leaf leaf = firstLeaf;
+            private int ix;
+
+            @Override
+            public boolean hasNext() {
+                // skip leaves emptied by remove()
+                while (ix == leaf.count && leaf.next != null) {
+                    leaf = leaf.next;
+                    ix = 0;
+                }
+                return ix < leaf.count;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (K) leaf.keys[ix++];
+            }
+        };
+    }
+
+    /** Returns the number of nodes on the path from the root to a leaf. */
+    int height() {
+        return height + 1;
+    }
+
+    /** Returns the leaf where KEY is or would be. */
+    private Leaf findLeaf(K key) {
+        if (key == null) {
+            throw new NullPointerException("Search key can not be null");
+        }
+        Node node = root;
+        for (int depth = 0; depth < height; depth++) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    /** Returns the index of the child of INNER whose keys KEY falls between. */
+    private int childIndex(Inner inner, K key) {
+        int ix = search(inner, key);
+        // a key equal to separator i is the smallest key under child i + 1
+        return ix >= 0 ? ix + 1 : -ix - 1;
+    }
+
+    /**
+     * Returns the index of KEY among the keys of NODE, or -(i + 1) if KEY is
+     * not there and i is the index it would be inserted at.
+     */
+    @SuppressWarnings("unchecked")
+    private int search(Node node, K key) {
+        Object[] keys = node.keys;
+        int lo = 0;
+        int hi = node.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = key.compareTo((K) keys[mid]);
+            if (cmp < 0) {
+                hi = mid - 1;
+            } else if (cmp > 0) {
+                lo = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /** Inserts ITEM at IX into the first COUNT elements of ARRAY, shifting the rest right. */
+    private static void insertAt(Object[] array, int count, int ix, Object item) {
+        System.arraycopy(array, ix, array, ix + 1, count - ix);
+        array[ix] = item;
+    }
+
+    /**
+     * Moves the upper half of LEAF into a new leaf to its right, and adds
+     * that leaf to the inner nodes on PATH, as descended by put().
+     */
+    private void splitLeaf(Leaf leaf, Inner[] path, int[] childIx) {
+        Leaf right = new Leaf(fanout);
+        int mid = leaf.count / 2;
+        right.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.count);
+        Arrays.fill(leaf.keys, mid, leaf.count, null);
+        Arrays.fill(leaf.values, mid, leaf.count, null);
+        leaf.count = mid;
+        right.next = leaf.next;
+        leaf.next = right;
+        addChild(right.keys[0], right, path, childIx, height - 1);
+    }
+
+    /**
+     * Adds CHILD, whose keys are all at least SEPARATOR, to the inner node
+     * at DEPTH on PATH, just right of the child that put() descended into.
+     * Splits that node if it overflows, and makes a new root if DEPTH is -1.
+     */
+    private void addChild(Object separator, Node child, Inner[] path, int[] childIx, int depth) {
+        while (depth >= 0) {
+            Inner parent = path[depth];
+            int ix = childIx[depth];
+            insertAt(parent.keys, parent.count, ix, separator);
+            insertAt(parent.children, parent.count + 1, ix + 1, child);
+            parent.count++;
+            if (parent.count < fanout) {
+                return;
+            }
+            // move the keys above the middle one to a new node, and the middle one up
+            Inner right = new Inner(fanout - 1);
+            int mid = parent.count / 2;
+            right.count = parent.count - mid - 1;
+            System.arraycopy(parent.keys, mid + 1, right.keys, 0, right.count);
+            System.arraycopy(parent.children, mid + 1, right.children, 0, right.count + 1);
+            separator = parent.keys[mid];
+            Arrays.fill(parent.keys, mid, parent.count, null);
+            Arrays.fill(parent.children, mid + 1, parent.count + 1, null);
+            parent.count = mid;
+            child = right;
+            depth--;
+        }
+        Inner newRoot = new Inner(fanout - 1);
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = child;
+        newRoot.count = 1;
+        root = newRoot;
+        height++;
+    }
+}
@@ -1,4 +1,7 @@
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /* Your implementation BSTMap should implement this interface. To do so,
  * append "implements Map61B<K, V>" to the end of your "public class..."
@@ -35,4 +38,63 @@ public interface Map61B<K, V> extends Iterable<K> {
      * Not required for Lab 7. If you don't implement this, throw an
      * UnsupportedOperationException. */
     V remove(K key);
+
+    /* Update operations. The default implementations look KEY up two or
+     * three times; implementations should override them to find KEY once.
+     * As in java.util.Map, a key mapped to null counts as absent, except
+     * in getOrDefault(). */
+
+    /** Returns the value to which KEY is mapped, or DEFAULTVALUE if this map
+     * contains no mapping for KEY. */
+    default V getOrDefault(K key, V defaultValue) {
+        V value = get(key);
+        return value != null || containsKey(key) ? value : defaultValue;
+    }
+
+    /** Associates VALUE with KEY if KEY is absent. Returns the previous value,
+     * or null if there was none and VALUE was put. */
+    default V putIfAbsent(K key, V value) {
+        V old = get(key);
+        if (old == null) {
+            put(key, value);
+        }
+        return old;
+    }
+
+    /** Returns the value for KEY. If KEY is absent, first computes its value
+     * with MAPPINGFUNCTION and puts it, unless it is null. */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /** Associates VALUE with KEY if KEY is absent, otherwise replaces its
+     * value with REMAPPINGFUNCTION applied to the old value and VALUE. If
+     * that returns null, removes KEY. Returns the new value, or null if KEY
+     * was removed. VALUE must not be null. */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        V old = get(key);
+        V newValue = old == null ? value : remappingFunction.apply(old, value);
+        if (newValue == null) {
+            remove(key);
+        } else {
+            put(key, newValue);
+        }
+        return newValue;
+    }
+
+    /** Replaces the value of KEY with ADJUST applied to it if KEY is present,
+     * otherwise associates KEY with PUTVALUE. Returns the resulting value. */
+    default V adjustOrPut(K key, Function<? super V, ? extends V> adjust, V putValue) {
+        V value = containsKey(key) ? adjust.apply(get(key)) : putValue;
+        put(key, value);
+        return value;
+    }
 }
@@ -0,0 +1,447 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe, lock-free ordered Map implementation backed by a skip list.
+ * <p>
+ * Every key is in a sorted linked list, and each node is also linked into
+ * the sparser lists above it with probability 1/2 per level, so a search
+ * skips ahead on the top list and drops a level whenever the next key is
+ * too large: O(log N) steps expected, whatever the order of insertion.
+ * <p>
+ * No operation takes a lock. put() links a new node into the bottom list
+ * with one compareAndSet, which is when the key appears, and then into the
+ * lists above. remove() sets the node's value to null with compareAndSet,
+ * which is when the key disappears, then marks each of its links by
+ * replacing its successor with a marker node, so that no node can be
+ * linked in after it, and finally unlinks it. Searches that meet a marked
+ * node unlink it themselves, so a stalled remover never blocks anyone.
+ * get(), ceilingKey() and the iterators only read, and skip marked nodes;
+ * floorKey() finishes removing a floor it finds removed before it retries.
+ * <p>
+ * iterator(), keySet() and range() visit keys in increasing order and are
+ * weakly consistent: they return each key that is in the map for the whole
+ * scan exactly once, may or may not return keys added or removed during
+ * it, and never throw ConcurrentModificationException. size() is exact
+ * only when no other thread is updating the map.
+ * <p>
+ * Neither keys nor values may be null. Of the update operations, only
+ * put(), putIfAbsent() and remove() are atomic; the other Map61B defaults
+ * combine separate atomic steps.
+ */
+public class SkipListMap<K extends Comparable<K>, V> implements Map61B<K, V> {
+
+    /** Most lists a node can be linked into; enough for 2^32 keys. */
+    private static final int MAX_LEVEL = 32;
+
+    /** Volatile and compareAndSet access to the elements of a Node[]. */
+    private static final VarHandle LINK = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    /** The first node of every list. Its key and value are never read. */
+    private final Node<K, V> head = new Node<>(null, null, MAX_LEVEL);
+    /** Number of lists in use, which only grows. */
+    private final AtomicInteger levels = new AtomicInteger(1);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * A key and its value, which is null once the key has been removed, with
+     * one link per list the node is in. Extends AtomicReference to hold the
+     * value without a separate object per node. The links are a plain array
+     * read through LINK rather than an AtomicReferenceArray, which would add
+     * another object to every step of a search.
+     */
+    @SuppressWarnings("serial")
+    private static class Node<K, V> extends AtomicReference<V> {
+        final K key;
+        /** next[i] is the successor in list i, or a Marker once this node is removed. */
+        final Node<K, V>[] next;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node(K key, V value, int height) {
+            super(value);
+            this.key = key;
+            next = height == 0 ? null : new Node[height];
+        }
+
+        int height() {
+            return next.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V> link(int i) {
+            return (Node<K, V>) LINK.getVolatile(next, i);
+        }
+
+        boolean casLink(int i, Node<K, V> expected, Node<K, V> link) {
+            return LINK.compareAndSet(next, i, expected, link);
+        }
+    }
+
+    /** Stands in for the successor of a removed node, which can no longer change. */
+    @SuppressWarnings("serial")
+    private static final class Marker<K, V> extends Node<K, V> {
+        final Node<K, V> succ;
+
+        Marker(Node<K, V> succ) {
+            super(null, null, 0);
+            this.succ = succ;
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        doPut(key, value, false);
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = findNode(key);
+        return node == null ? null : node.get();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        long n = size.sum();
+        return n < 0 ? 0 : (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    /** Removes every key, one at a time. Keys put during clear() may remain. */
+    @Override
+    public void clear() {
+        for (K key : this) {
+            remove(key);
+        }
+    }
+
+    /** Returns a weakly consistent Set view of the keys in increasing order. */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return SkipListMap.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return SkipListMap.this.size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                try {
+                    return o != null && containsKey((K) o);
+                } catch (ClassCastException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    @Override
+    public V remove(K key) {
+        Node<K, V> node = find(key, null, null);
+        if (node == null) {
+            return null;
+        }
+        while (true) {
+            V old = node.get();
+            if (old == null) {
+                // removed by another thread first
+                return null;
+            }
+            if (node.compareAndSet(old, null)) {
+                size.decrement();
+                markLinks(node);
+                find(key, null, null);
+                return old;
+            }
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return doPut(key, value, true);
+    }
+
+    /** Returns the largest key less than or equal to K, or null if there is none. */
+    public K floorKey(K k) {
+        Objects.requireNonNull(k);
+        while (true) {
+            Node<K, V> pred = head;
+            Node<K, V> curr = null;
+            for (int i = levels.get() - 1; i >= 0; i--) {
+                curr = successor(pred, i);
+                while (curr != null && curr.key.compareTo(k) < 0) {
+                    pred = curr;
+                    curr = successor(curr, i);
+                }
+            }
+            if (curr != null && curr.key.compareTo(k) == 0 && curr.get() != null) {
+                return curr.key;
+            }
+            if (pred == head) {
+                return null;
+            }
+            if (pred.get() != null) {
+                return pred.key;
+            }
+            // the floor was removed under us: finish removing it, since its
+            // remover may be stalled before marking it, and search again
+            markLinks(pred);
+            find(pred.key, null, null);
+        }
+    }
+
+    /** Returns the smallest key greater than or equal to K, or null if there is none. */
+    public K ceilingKey(K k) {
+        Node<K, V> node = ceilingNode(k);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Returns the keys between LO and HI, inclusive, in increasing order.
+     * The iterator is weakly consistent like iterator(), and walks the bottom
+     * list from the first key at least LO.
+     */
+    public Iterable<K> range(K lo, K hi) {
+        Objects.requireNonNull(lo);
+        Objects.requireNonNull(hi);
+        return () -> new SkipListIterator(ceilingNode(lo), hi);
+    }
+
+    /** Returns a weakly consistent iterator over the keys in increasing order. */
+    @Override
+    public Iterator<K> iterator() {
+        return new SkipListIterator(live(successor(head, 0)), null);
+    }
+
+    /** Returns the number of lists in use. */
+    int height() {
+        return levels.get();
+    }
+
+    /**
+     * Puts VALUE for KEY, or if ONLYIFABSENT, puts it only if KEY is absent.
+     * Returns the value KEY had, or null.
+     */
+    private V doPut(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(value);
+        int height = randomHeight();
+        // only a put that raises the height writes the shared counter
+        for (int top = levels.get(); height > top && !levels.compareAndSet(top, height); top = levels.get()) {
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] preds = new Node[MAX_LEVEL];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] succs = new Node[MAX_LEVEL];
+        while (true) {
+            Node<K, V> found = find(key, preds, succs);
+            if (found != null) {
+                V old = found.get();
+                if (old != null) {
+                    if (onlyIfAbsent || found.compareAndSet(old, value)) {
+                        return old;
+                    }
+                    continue;
+                }
+                // being removed: finish that first, then add a new node
+                markLinks(found);
+                continue;
+            }
+            Node<K, V> node = new Node<>(key, value, height);
+            for (int i = 0; i < height; i++) {
+                node.next[i] = succs[i];
+            }
+            if (!preds[0].casLink(0, succs[0], node)) {
+                continue;
+            }
+            size.increment();
+            linkUpper(node, preds, succs);
+            return null;
+        }
+    }
+
+    /**
+     * Links NODE, already in the bottom list, into the lists above it,
+     * between PREDS and SUCCS as found by find(). Gives up if NODE is removed.
+     */
+    private void linkUpper(Node<K, V> node, Node<K, V>[] preds, Node<K, V>[] succs) {
+        for (int i = 1; i < node.height(); i++) {
+            while (true) {
+                Node<K, V> succ = succs[i];
+                Node<K, V> link = node.link(i);
+                if (link instanceof Marker || link != succ && !node.casLink(i, link, succ)) {
+                    // marked by a remover, who will unlink whatever we linked
+                    return;
+                }
+                if (preds[i].casLink(i, succ, node)) {
+                    break;
+                }
+                if (find(node.key, preds, succs) != node) {
+                    return;
+                }
+            }
+        }
+        if (node.get() == null) {
+            // removed while being linked, maybe above where the remover unlinked it
+            find(node.key, null, null);
+        }
+    }
+
+    /** Marks every link of NODE, from the top list down, so that nothing can follow it. */
+    private static <K, V> void markLinks(Node<K, V> node) {
+        for (int i = node.height() - 1; i >= 0; i--) {
+            while (true) {
+                Node<K, V> succ = node.link(i);
+                if (succ instanceof Marker || node.casLink(i, succ, new Marker<>(succ))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the node of KEY in the bottom list, or null if there is none.
+     * Fills PREDS and SUCCS, unless null, with the last node before KEY and
+     * the first node at or after it in each list, unlinking marked nodes on
+     * the way.
+     */
+    private Node<K, V> find(K key, Node<K, V>[] preds, Node<K, V>[] succs) {
+        Objects.requireNonNull(key, "Search key can not be null");
+        retry:
+        while (true) {
+            Node<K, V> pred = head;
+            Node<K, V> curr = null;
+            for (int i = levels.get() - 1; i >= 0; i--) {
+                curr = pred.link(i);
+                while (true) {
+                    if (curr instanceof Marker) {
+                        // pred was removed since we stepped onto it
+                        continue retry;
+                    }
+                    if (curr == null) {
+                        break;
+                    }
+                    Node<K, V> succ = curr.link(i);
+                    if (succ instanceof Marker<K, V> marker) {
+                        if (!pred.casLink(i, curr, marker.succ)) {
+                            continue retry;
+                        }
+                        curr = marker.succ;
+                    } else if (curr.key.compareTo(key) < 0) {
+                        pred = curr;
+                        curr = succ;
+                    } else {
+                        break;
+                    }
+                }
+                if (preds != null) {
+                    preds[i] = pred;
+                    succs[i] = curr;
+                }
+            }
+            return curr != null && curr.key.compareTo(key) == 0 ? curr : null;
+        }
+    }
+
+    /** Returns the live node of KEY, or null, without unlinking anything. */
+    private Node<K, V> findNode(K key) {
+        Objects.requireNonNull(key, "Search key can not be null");
+        Node<K, V> pred = head;
+        Node<K, V> curr = null;
+        for (int i = levels.get() - 1; i >= 0; i--) {
+            curr = successor(pred, i);
+            while (curr != null) {
+                int cmp = curr.key.compareTo(key);
+                if (cmp == 0 && curr.get() != null) {
+                    return curr;
+                } else if (cmp >= 0) {
+                    // a removed node of KEY may still be linked above a new one
+                    break;
+                }
+                pred = curr;
+                curr = successor(curr, i);
+            }
+        }
+        return null;
+    }
+
+    /** Returns the first live node with a key at least K, or null. */
+    private Node<K, V> ceilingNode(K k) {
+        Objects.requireNonNull(k);
+        Node<K, V> pred = head;
+        Node<K, V> curr = null;
+        for (int i = levels.get() - 1; i >= 0; i--) {
+            curr = successor(pred, i);
+            while (curr != null && curr.key.compareTo(k) < 0) {
+                pred = curr;
+                curr = successor(curr, i);
+            }
+        }
+        return live(curr);
+    }
+
+    /** Returns the successor of NODE in list I, looking through a marker. */
+    private static <K, V> Node<K, V> successor(Node<K, V> node, int i) {
+        Node<K, V> succ = node.link(i);
+        return succ instanceof Marker<K, V> marker ? marker.succ : succ;
+    }
+
+    /** Returns NODE, or the first node after it in the bottom list, that has not been removed. */
+    private static <K, V> Node<K, V> live(Node<K, V> node) {
+        while (node != null && node.get() == null) {
+            node = successor(node, 0);
+        }
+        return node;
+    }
+
+    /** Returns a random height from 1 to MAX_LEVEL, each one half as likely as the one before. */
+    private static int randomHeight() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        return Math.min(1 + Integer.numberOfTrailingZeros(bits), MAX_LEVEL);
+    }
+
+    /** Walks the bottom list from a node up to a key, skipping removed nodes. */
+    private class SkipListIterator implements Iterator<K> {
+        private Node<K, V> nextNode;
+        private final K hi;
+
+        /** Starts at NEXTNODE, a live node or null, and stops after HI unless it is null. */
+        SkipListIterator(Node<K, V> nextNode, K hi) {
+            this.hi = hi;
+            this.nextNode = nextNode != null && hi != null && nextNode.key.compareTo(hi) > 0 ? null : nextNode;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public K next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            K key = nextNode.key;
+            Node<K, V> after = live(successor(nextNode, 0));
+            nextNode = after != null && hi != null && after.key.compareTo(hi) > 0 ? null : after;
+            return key;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * A data structure that uses a linked list to store pairs of keys and values.
@@ -74,6 +77,92 @@ public class ULLMap<K, V> implements Map61B<K, V> {
         return list.get(key) != null;
     }
 
+    /* The update operations below walk the list once, and add a missing key
+     * at the front as put() does. */
+
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        Entry lookup = find(key);
+        return lookup == null ? defaultValue : lookup.val;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V val) {
+        Entry lookup = find(key);
+        if (lookup == null) {
+            addFirst(key, val);
+            return null;
+        }
+        V old = lookup.val;
+        if (old == null) {
+            lookup.val = val;
+        }
+        return old;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Entry lookup = find(key);
+        if (lookup != null && lookup.val != null) {
+            return lookup.val;
+        }
+        V val = mappingFunction.apply(key);
+        if (val != null) {
+            if (lookup == null) {
+                addFirst(key, val);
+            } else {
+                lookup.val = val;
+            }
+        }
+        return val;
+    }
+
+    /** Same as Map61B.merge(). Throws UnsupportedOperationException if
+     * REMAPPINGFUNCTION returns null, since ULLMap can't remove keys. */
+    @Override
+    public V merge(K key, V val, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(val);
+        Entry lookup = find(key);
+        if (lookup == null) {
+            addFirst(key, val);
+            return val;
+        }
+        V newVal = lookup.val == null ? val : remappingFunction.apply(lookup.val, val);
+        if (newVal == null) {
+            remove(key);
+            return null;
+        }
+        lookup.val = newVal;
+        return newVal;
+    }
+
+    @Override
+    public V adjustOrPut(K key, Function<? super V, ? extends V> adjust, V putVal) {
+        Entry lookup = find(key);
+        if (lookup == null) {
+            addFirst(key, putVal);
+            return putVal;
+        }
+        lookup.val = adjust.apply(lookup.val);
+        return lookup.val;
+    }
+
+    /** Returns the Entry whose key is equal to KEY, or null if no such Entry exists. */
+    private Entry find(K key) {
+        for (Entry n = list; n != null; n = n.next) {
+            if (key.equals(n.key)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    /** Adds a pair for KEY, which is not in this map, at the front of the list. */
+    private void addFirst(K key, V val) {
+        list = new Entry(key, val, list);
+        size += 1;
+    }
+
     @Override
     public Iterator<K> iterator() {
         return new ULLMapIter();
@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures throughput of a mixed get/put/remove workload for SkipListMap,
+ * for a balanced BSTMap behind one global lock, and for
+ * java.util.concurrent.ConcurrentSkipListMap, sweeping the thread count
+ * from 1 up to twice the number of available processors.
+ * <p>
+ * BSTMap does not support remove(), so the locked BSTMap looks keys up
+ * instead of removing them, and fills up with every key as puts go on.
+ * Its results are comparable to the others only for small update percentages.
+ */
+public class ConcurrentThroughputSpeedTest {
+    /** How long each (map, thread count) pair runs, in milliseconds. */
+    private static final int RUN_MILLIS = 2000;
+
+    /**
+     * Requests user input and prints throughput for each thread count.
+     * ARGS is unused.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program runs a mixed workload of gets, puts and removes
+                 on Integer keys from several threads at once.
+                """);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # distinct keys: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter percentage of operations that are updates: ");
+            int updatePercent = Math.min(100, InsertRandomSpeedTest.waitForPositiveInt(input));
+
+            int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+            System.out.printf("%8s %18s %18s %24s%n", "threads", "SkipListMap", "locked BSTMap",
+                    "ConcurrentSkipListMap");
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                double skipList = throughput(new SkipListMap<>(), threads, N, updatePercent);
+                double locked = throughput(new LockedMap<>(new BSTMap<Integer, Integer>(true)), threads, N, updatePercent);
+                double jdk = throughput(new JdkMap<>(new ConcurrentSkipListMap<>()), threads, N, updatePercent);
+                System.out.printf("%8d %12.2f Mop/s %12.2f Mop/s %18.2f Mop/s%n", threads, skipList, locked, jdk);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Fills MAP with every other key below 2N, then runs THREADS threads
+     * doing random gets, and puts and removes in equal numbers, for
+     * RUN_MILLIS. Returns millions of operations per second.
+     */
+    public static double throughput(Map61B<Integer, Integer> map, int threads,
+                                    int N, int updatePercent) throws InterruptedException {
+        for (int i = 0; i < N; i++) {
+            map.put(2 * i, i);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    Integer key = r.nextInt(2 * N);
+                    int op = r.nextInt(200);
+                    if (op < updatePercent) {
+                        map.put(key, key);
+                    } else if (op < 2 * updatePercent) {
+                        map.remove(key);
+                    } else {
+                        map.get(key);
+                    }
+                    count++;
+                }
+                ops.add(count);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / (RUN_MILLIS / 1000.0) / 1e6;
+    }
+
+    /** A Map61B that serializes every call on one lock, as callers do today. */
+    private static class LockedMap<K, V> implements Map61B<K, V> {
+        private final Map61B<K, V> map;
+
+        LockedMap(Map61B<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized void clear() {
+            map.clear();
+        }
+
+        @Override
+        public synchronized Set<K> keySet() {
+            return map.keySet();
+        }
+
+        /** BSTMap can't remove keys, so this only looks KEY up, under the same lock. */
+        @Override
+        public synchronized V remove(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return keySet().iterator();
+        }
+    }
+
+    /** A java.util.Map seen as a Map61B. */
+    private static class JdkMap<K, V> implements Map61B<K, V> {
+        private final Map<K, V> map;
+
+        JdkMap(Map<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return map.keySet();
+        }
+
+        @Override
+        public V remove(K key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return map.keySet().iterator();
+        }
+    }
+}
@@ -98,7 +98,8 @@ public class InsertInOrderSpeedTest {
     public static void timeInOrderMap61B(Map61B<String, Integer> map, int N) {
         try {
             double mapTime = insertInOrder(map, N);
-            System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            String balanced = map instanceof BSTMap<?, ?> bst && bst.isBalanced() ? " (balanced)" : "";
+            System.out.printf(map.getClass() + balanced + ": %.2f sec\n", mapTime);
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -163,6 +164,8 @@ public class InsertInOrderSpeedTest {
                 int N = InsertRandomSpeedTest.waitForPositiveInt(input);
                 timeInOrderMap61B(new ULLMap<>(), N);
                 timeInOrderMap61B(new BSTMap<>(), N);
+                timeInOrderMap61B(new BSTMap<>(true), N);
+                timeInOrderMap61B(new BTreeMap<>(), N);
                 timeInOrderTreeMap(new TreeMap<>(), N);
                 timeInOrderHashMap(new HashMap<>(), N);
 
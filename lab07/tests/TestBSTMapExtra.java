@@ -1,9 +1,16 @@
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.junit.Test;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
 
 /** Tests of optional parts of lab 7. */
 public class TestBSTMapExtra {
@@ -114,4 +121,254 @@ public class TestBSTMapExtra {
         assertThat(noChild.get('Z')).isNull();
     }
 
+    @Test
+    public void testIterationInOrder() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        java.util.Random r = new java.util.Random(61);
+        for (int i = 0; i < 1000; i++) {
+            int key = r.nextInt(5000);
+            b.put(key, i);
+            ref.put(key, i);
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (int key : b) {
+            keys.add(key);
+        }
+        assertThat(keys).containsExactlyElementsIn(ref.keySet()).inOrder();
+
+        List<Integer> values = new ArrayList<>();
+        b.forEach((k, v) -> values.add(v));
+        assertThat(values).containsExactlyElementsIn(ref.values()).inOrder();
+
+        for (Map.Entry<Integer, Integer> entry : b.entrySet()) {
+            entry.setValue(-entry.getKey());
+        }
+        assertThat(b.get(ref.firstKey())).isEqualTo(-ref.firstKey());
+    }
+
+    @Test
+    public void testIteratorFailFast() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("b", 1);
+        b.put("a", 2);
+        b.put("c", 3);
+        Iterator<String> it = b.iterator();
+        assertThat(it.next()).isEqualTo("a");
+        // updating an existing key is not a structural modification
+        b.put("a", 5);
+        assertThat(it.next()).isEqualTo("b");
+        b.put("d", 4);
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+
+    @Test
+    public void testUpdateOperations() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        assertThat(b.getOrDefault("m", -1)).isEqualTo(-1);
+        assertThat(b.putIfAbsent("m", 1)).isNull();
+        assertThat(b.putIfAbsent("m", 2)).isEqualTo(1);
+        assertThat(b.computeIfAbsent("c", String::length)).isEqualTo(1);
+        assertThat(b.computeIfAbsent("c", k -> 5)).isEqualTo(1);
+        assertThat(b.computeIfAbsent("x", k -> null)).isNull();
+        assertThat(b.merge("m", 10, Integer::sum)).isEqualTo(11);
+        assertThat(b.merge("z", 10, Integer::sum)).isEqualTo(10);
+        assertThat(b.adjustOrPut("z", v -> v * 2, 0)).isEqualTo(20);
+        assertThat(b.adjustOrPut("a", v -> v * 2, 5)).isEqualTo(5);
+
+        TreeMap<String, Integer> ref = new TreeMap<>(Map.of("a", 5, "c", 1, "m", 11, "z", 20));
+        String[] words = "the cat and the hat and the bat".split(" ");
+        for (String w : words) {
+            b.merge(w, 1, Integer::sum);
+            ref.merge(w, 1, Integer::sum);
+        }
+        List<String> keys = new ArrayList<>();
+        b.forEach((k, v) -> keys.add(k));
+        assertThat(keys).containsExactlyElementsIn(ref.keySet()).inOrder();
+        for (String k : ref.keySet()) {
+            assertThat(b.get(k)).isEqualTo(ref.get(k));
+        }
+        assertThat(b.size()).isEqualTo(ref.size());
+        assertThrows(ConcurrentModificationException.class,
+                () -> b.computeIfAbsent("new", k -> {
+                    b.put("other", 1);
+                    return 1;
+                }));
+        assertThrows(ConcurrentModificationException.class,
+                () -> b.merge("m", 1, (x, y) -> {
+                    b.put("other2", 1);
+                    return x + y;
+                }));
+        assertThrows(ConcurrentModificationException.class,
+                () -> b.adjustOrPut("m", v -> {
+                    b.put("other3", 1);
+                    return v + 1;
+                }, 0));
+        assertThat(b.get("m")).isEqualTo(11);
+    }
+
+    @Test
+    public void testBalancedSortedInsert() {
+        BSTMap<Integer, Integer> b = new BSTMap<>(true);
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            b.put(i, -i);
+        }
+        assertThat(b.size()).isEqualTo(n);
+        // a red-black tree of N keys is at most 2 lg(N + 1) deep
+        assertThat(b.height()).isAtMost((int) (2 * Math.log(n + 1) / Math.log(2)));
+        for (int i = 0; i < n; i++) {
+            assertThat(b.get(i)).isEqualTo(-i);
+        }
+        assertThat(b.containsKey(n)).isFalse();
+
+        BSTMap<Integer, Integer> unbalanced = new BSTMap<>();
+        for (int i = 0; i < 1000; i++) {
+            unbalanced.put(i, i);
+        }
+        assertThat(unbalanced.height()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testBalancedMatchesTreeMap() {
+        BSTMap<Integer, Integer> b = new BSTMap<>(true);
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        java.util.Random r = new java.util.Random(61);
+        for (int i = 0; i < 5000; i++) {
+            int key = r.nextInt(2000);
+            switch (r.nextInt(3)) {
+                case 0 -> {
+                    b.put(key, i);
+                    ref.put(key, i);
+                }
+                case 1 -> assertThat(b.putIfAbsent(key, i)).isEqualTo(ref.putIfAbsent(key, i));
+                default -> assertThat(b.merge(key, 1, Integer::sum)).isEqualTo(ref.merge(key, 1, Integer::sum));
+            }
+        }
+        assertThat(b.size()).isEqualTo(ref.size());
+        assertThat(b.height()).isAtMost((int) (2 * Math.log(ref.size() + 1) / Math.log(2)));
+        List<Integer> keys = new ArrayList<>();
+        b.forEach((k, v) -> {
+            keys.add(k);
+            assertThat(v).isEqualTo(ref.get(k));
+        });
+        assertThat(keys).containsExactlyElementsIn(ref.keySet()).inOrder();
+    }
+
+    /**
+     * Sorted keys make an unbalanced BSTMap a list as deep as it is big,
+     * which used to overflow the stack in get() and put(). Building such a
+     * tree takes quadratic time, so it is kept to 50000 keys; the balanced
+     * tree takes 10 million.
+     */
+    @Test
+    public void testDeepTreesDontOverflow() {
+        BSTMap<Integer, Integer> deep = new BSTMap<>();
+        int n = 50000;
+        for (int i = 0; i < n; i++) {
+            deep.put(i, i);
+        }
+        assertThat(deep.get(n - 1)).isEqualTo(n - 1);
+        assertThat(deep.containsKey(n)).isFalse();
+        assertThat(deep.putIfAbsent(n, n)).isNull();
+        assertThat(deep.size()).isEqualTo(n + 1);
+
+        BSTMap<Integer, Integer> big = new BSTMap<>(true);
+        int m = 10_000_000;
+        for (int i = 0; i < m; i++) {
+            Integer key = i;
+            big.put(key, key);
+        }
+        assertThat(big.size()).isEqualTo(m);
+        for (int i = 0; i < m; i += 9973) {
+            assertThat(big.get(i)).isEqualTo(i);
+        }
+        assertThat(big.get(m)).isNull();
+    }
+
+    @Test
+    public void testOrderedQueries() {
+        for (boolean balanced : new boolean[]{false, true}) {
+            BSTMap<Integer, Integer> b = new BSTMap<>(balanced);
+            TreeMap<Integer, Integer> ref = new TreeMap<>();
+            java.util.Random r = new java.util.Random(61);
+            for (int i = 0; i < 2000; i++) {
+                // even keys only, so that odd ones are always absent
+                int key = 2 * r.nextInt(3000);
+                b.put(key, i);
+                ref.put(key, i);
+            }
+            List<Integer> sorted = new ArrayList<>(ref.keySet());
+            for (int i = 0; i < sorted.size(); i++) {
+                assertThat(b.select(i)).isEqualTo(sorted.get(i));
+                assertThat(b.rank(sorted.get(i))).isEqualTo(i);
+            }
+            assertThrows(IllegalArgumentException.class, () -> b.select(-1));
+            assertThrows(IllegalArgumentException.class, () -> b.select(sorted.size()));
+
+            for (int k = -3; k < 6003; k += 7) {
+                assertThat(b.floorKey(k)).isEqualTo(ref.floorKey(k));
+                assertThat(b.ceilingKey(k)).isEqualTo(ref.ceilingKey(k));
+                assertThat(b.rank(k)).isEqualTo(ref.headMap(k).size());
+            }
+
+            for (int i = 0; i < 200; i++) {
+                int lo = r.nextInt(6100) - 50;
+                int hi = lo + r.nextInt(500) - 50;
+                int expected = lo > hi ? 0 : ref.subMap(lo, true, hi, true).size();
+                assertThat(b.rangeCount(lo, hi)).isEqualTo(expected);
+                List<Integer> keys = new ArrayList<>();
+                for (int key : b.range(lo, hi)) {
+                    keys.add(key);
+                }
+                if (lo > hi) {
+                    assertThat(keys).isEmpty();
+                } else {
+                    assertThat(keys).containsExactlyElementsIn(ref.subMap(lo, true, hi, true).keySet()).inOrder();
+                }
+            }
+        }
+    }
+
+
+    /** Keys added by the update operations count in rank() and select(),
+     * even when a mapping function looks up another key first. */
+    @Test
+    public void testSizesAfterUpdateOperations() {
+        for (boolean balanced : new boolean[]{false, true}) {
+            BSTMap<Integer, Integer> b = new BSTMap<>(balanced);
+            b.put(50, 0);
+            b.put(10, 0);
+            b.put(90, 0);
+            b.putIfAbsent(30, 1);
+            b.computeIfAbsent(70, k -> {
+                // replaces a value, so it is not a structural modification
+                b.put(10, 5);
+                return k;
+            });
+            b.merge(20, 1, Integer::sum);
+            b.adjustOrPut(80, v -> v + 1, 1);
+            List<Integer> sorted = List.of(10, 20, 30, 50, 70, 80, 90);
+            assertThat(b.size()).isEqualTo(sorted.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                assertThat(b.select(i)).isEqualTo(sorted.get(i));
+                assertThat(b.rank(sorted.get(i))).isEqualTo(i);
+            }
+            assertThat(b.get(10)).isEqualTo(5);
+        }
+    }
+
+    @Test
+    public void testRangeIteratorFailFast() {
+        BSTMap<String, Integer> b = new BSTMap<>(true);
+        for (String s : "a b c d e f".split(" ")) {
+            b.put(s, 0);
+        }
+        Iterator<String> it = b.range("b", "d").iterator();
+        assertThat(it.next()).isEqualTo("b");
+        b.put("bb", 1);
+        assertThrows(ConcurrentModificationException.class, it::next);
+        assertThat(b.rangeCount("b", "d")).isEqualTo(4);
+        assertThat(b.range("x", "z").iterator().hasNext()).isFalse();
+    }
 }
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+/** Tests of BTreeMap, mostly against java.util.TreeMap. */
+public class TestBTreeMap {
+
+    @Test
+    public void sanityTest() {
+        BTreeMap<String, Integer> b = new BTreeMap<>();
+        assertThat(b.size()).isEqualTo(0);
+        assertThat(b.get("a")).isNull();
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, 1 + i);
+            assertThat(b.get("hi" + i)).isEqualTo(1 + i);
+            assertThat(b.containsKey("hi" + i)).isTrue();
+        }
+        b.put("hi0", -1);
+        assertThat(b.size()).isEqualTo(455);
+        assertThat(b.get("hi0")).isEqualTo(-1);
+        assertThat(b.keySet()).contains("hi454");
+        b.clear();
+        assertThat(b.size()).isEqualTo(0);
+        assertThat(b.containsKey("hi1")).isFalse();
+        assertThat(b.iterator().hasNext()).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> new BTreeMap<String, Integer>(2));
+    }
+
+    /** The smallest fanout splits nodes at nearly every put, so every split path runs. */
+    @Test
+    public void testMatchesTreeMap() {
+        for (int fanout : new int[]{3, 4, 5, 32}) {
+            BTreeMap<Integer, Integer> b = new BTreeMap<>(fanout);
+            TreeMap<Integer, Integer> ref = new TreeMap<>();
+            Random r = new Random(61);
+            for (int i = 0; i < 20000; i++) {
+                int key = r.nextInt(5000);
+                if (r.nextInt(4) == 0) {
+                    assertThat(b.remove(key)).isEqualTo(ref.remove(key));
+                } else {
+                    b.put(key, i);
+                    ref.put(key, i);
+                }
+            }
+            assertThat(b.size()).isEqualTo(ref.size());
+            for (int key = -1; key <= 5000; key++) {
+                assertThat(b.get(key)).isEqualTo(ref.get(key));
+            }
+            List<Integer> keys = new ArrayList<>();
+            for (int key : b) {
+                keys.add(key);
+            }
+            assertThat(keys).containsExactlyElementsIn(ref.keySet()).inOrder();
+        }
+    }
+
+    @Test
+    public void testSortedInsertStaysShallow() {
+        BTreeMap<Integer, Integer> b = new BTreeMap<>(16);
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            b.put(i, i);
+        }
+        // half-full nodes hold at least 8 keys each
+        assertThat(b.height()).isAtMost(1 + (int) Math.ceil(Math.log(n) / Math.log(8)));
+        assertThat(b.get(n - 1)).isEqualTo(n - 1);
+        int expected = 0;
+        for (int key : b) {
+            assertThat(key).isEqualTo(expected++);
+        }
+        assertThat(expected).isEqualTo(n);
+    }
+
+    @Test
+    public void testRemoveEveryKey() {
+        BTreeMap<Integer, Integer> b = new BTreeMap<>(4);
+        for (int i = 0; i < 1000; i++) {
+            b.put(i, i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertThat(b.remove(i)).isEqualTo(i);
+        }
+        Iterator<Integer> it = b.iterator();
+        assertThat(it.next()).isEqualTo(1);
+        assertThat(it.next()).isEqualTo(3);
+        for (int i = 1; i < 1000; i += 2) {
+            assertThat(b.remove(i)).isEqualTo(i);
+        }
+        assertThat(b.size()).isEqualTo(0);
+        assertThat(b.iterator().hasNext()).isFalse();
+        b.put(500, 1);
+        assertThat(b.keySet()).containsExactly(500);
+    }
+
+    @Test
+    public void testIteratorFailFast() {
+        BTreeMap<String, Integer> b = new BTreeMap<>();
+        b.put("b", 1);
+        b.put("a", 2);
+        b.put("c", 3);
+        Iterator<String> it = b.iterator();
+        assertThat(it.next()).isEqualTo("a");
+        // updating an existing key is not a structural modification
+        b.put("a", 5);
+        assertThat(it.next()).isEqualTo("b");
+        b.put("d", 4);
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+
+    @Test
+    public void testUpdateOperations() {
+        BTreeMap<String, Integer> b = new BTreeMap<>(3);
+        String[] words = "the cat and the hat and the bat sat on the mat".split(" ");
+        TreeMap<String, Integer> ref = new TreeMap<>();
+        for (String w : words) {
+            b.merge(w, 1, Integer::sum);
+            ref.merge(w, 1, Integer::sum);
+        }
+        assertThat(b.merge("the", 1, (x, y) -> null)).isNull();
+        ref.remove("the");
+        assertThat(b.computeIfAbsent("dog", String::length)).isEqualTo(3);
+        ref.put("dog", 3);
+        for (String k : ref.keySet()) {
+            assertThat(b.get(k)).isEqualTo(ref.get(k));
+        }
+        assertThat(b.keySet()).containsExactlyElementsIn(ref.keySet()).inOrder();
+    }
+}
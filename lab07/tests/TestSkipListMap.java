@@ -0,0 +1,232 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Tests of SkipListMap against java.util.TreeMap, then with concurrent
+ * writers and readers that must never lose or invent mappings.
+ */
+public class TestSkipListMap {
+
+    @Test
+    public void sanityTest() {
+        SkipListMap<String, Integer> b = new SkipListMap<>();
+        assertThat(b.size()).isEqualTo(0);
+        assertThat(b.get("a")).isNull();
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, 1 + i);
+            assertThat(b.get("hi" + i)).isEqualTo(1 + i);
+            assertThat(b.containsKey("hi" + i)).isTrue();
+        }
+        b.put("hi0", -1);
+        assertThat(b.size()).isEqualTo(455);
+        assertThat(b.get("hi0")).isEqualTo(-1);
+        assertThat(b.putIfAbsent("hi0", 5)).isEqualTo(-1);
+        assertThat(b.putIfAbsent("new", 5)).isNull();
+        assertThat(b.keySet()).contains("hi454");
+        b.clear();
+        assertThat(b.size()).isEqualTo(0);
+        assertThat(b.containsKey("hi1")).isFalse();
+        assertThat(b.iterator().hasNext()).isFalse();
+        assertThrows(NullPointerException.class, () -> b.put("a", null));
+        assertThrows(NullPointerException.class, () -> b.get(null));
+    }
+
+    @Test
+    public void testMatchesTreeMap() {
+        SkipListMap<Integer, Integer> b = new SkipListMap<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 50000; i++) {
+            int key = r.nextInt(5000);
+            if (r.nextInt(4) == 0) {
+                assertThat(b.remove(key)).isEqualTo(ref.remove(key));
+            } else {
+                b.put(key, i);
+                ref.put(key, i);
+            }
+        }
+        assertThat(b.size()).isEqualTo(ref.size());
+        for (int key = -1; key <= 5000; key++) {
+            assertThat(b.get(key)).isEqualTo(ref.get(key));
+            assertThat(b.floorKey(key)).isEqualTo(ref.floorKey(key));
+            assertThat(b.ceilingKey(key)).isEqualTo(ref.ceilingKey(key));
+        }
+        assertThat(b.keySet()).containsExactlyElementsIn(ref.keySet()).inOrder();
+        assertThat(b.range(1000, 2000)).containsExactlyElementsIn(ref.subMap(1000, true, 2000, true).keySet())
+                .inOrder();
+        assertThat(b.range(2000, 1000)).isEmpty();
+        // about lg 5000 lists, and surely not one per key
+        assertThat(b.height()).isAtMost(30);
+    }
+
+    /** Keys removed during a scan are skipped, and no exception is thrown. */
+    @Test
+    public void testIteratorWeaklyConsistent() {
+        SkipListMap<Integer, Integer> b = new SkipListMap<>();
+        for (int i = 0; i < 100; i++) {
+            b.put(i, i);
+        }
+        Iterator<Integer> it = b.iterator();
+        assertThat(it.next()).isEqualTo(0);
+        // the iterator may already hold the next key, so leave the first few alone
+        for (int i = 11; i < 100; i += 2) {
+            b.remove(i);
+        }
+        b.put(1000, 0);
+        List<Integer> rest = new ArrayList<>();
+        it.forEachRemaining(rest::add);
+        assertThat(rest).hasSize(55);
+        assertThat(rest.get(0)).isEqualTo(1);
+        assertThat(rest).doesNotContain(11);
+        assertThat(rest.get(54)).isEqualTo(1000);
+    }
+
+    /**
+     * Writers put and remove disjoint key ranges while readers look up keys
+     * that are never removed, and scan the map checking that it stays sorted.
+     */
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        int writers = 4;
+        int perWriter = 50000;
+        SkipListMap<Integer, Integer> map = new SkipListMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(-1 - i, i);
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> errors = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int base = w * perWriter;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = base; i < base + perWriter; i++) {
+                    map.put(i, i);
+                    if (i % 2 == 1) {
+                        map.remove(i - 1);
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            await(start);
+            while (!done.get()) {
+                for (int i = 0; i < 1000; i++) {
+                    if (!Integer.valueOf(i).equals(map.get(-1 - i))) {
+                        addError(errors, new AssertionError("lost key " + (-1 - i)));
+                    }
+                }
+            }
+        }));
+        threads.add(new Thread(() -> {
+            await(start);
+            while (!done.get()) {
+                int prev = Integer.MIN_VALUE;
+                int negatives = 0;
+                for (int key : map) {
+                    if (key <= prev) {
+                        addError(errors, new AssertionError(key + " after " + prev));
+                    }
+                    negatives += key < 0 ? 1 : 0;
+                    prev = key;
+                }
+                if (negatives != 1000) {
+                    addError(errors, new AssertionError("scan saw " + negatives + " of 1000 keys"));
+                }
+            }
+        }));
+        for (Thread t : threads) {
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads.subList(0, writers)) {
+            t.join();
+        }
+        done.set(true);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(map.size()).isEqualTo(1000 + writers * perWriter / 2);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 999; i >= 0; i--) {
+            expected.add(-1 - i);
+        }
+        for (int i = 1; i < writers * perWriter; i += 2) {
+            expected.add(i);
+        }
+        assertThat(map.keySet()).containsExactlyElementsIn(expected).inOrder();
+    }
+
+    /** Threads race to put and remove the same keys; each mapping is removed at most once. */
+    @Test
+    public void testContendedKeys() throws InterruptedException {
+        int threadCount = 4;
+        int rounds = 20000;
+        SkipListMap<Integer, Integer> map = new SkipListMap<>();
+        AtomicInteger puts = new AtomicInteger();
+        AtomicInteger removes = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                await(start);
+                Random r = new Random(seed);
+                for (int i = 0; i < rounds; i++) {
+                    int key = r.nextInt(16);
+                    if (r.nextBoolean()) {
+                        if (map.putIfAbsent(key, key) == null) {
+                            puts.incrementAndGet();
+                        }
+                    } else if (map.remove(key) != null) {
+                        removes.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertThat(map.size()).isEqualTo(puts.get() - removes.get());
+        int count = 0;
+        for (int key : map) {
+            assertThat(map.get(key)).isEqualTo(key);
+            count++;
+        }
+        assertThat(count).isEqualTo(map.size());
+    }
+
+    private static void addError(List<Throwable> errors, Throwable error) {
+        synchronized (errors) {
+            errors.add(error);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for ULLMap, BSTMap and BTreeMap, with java.util.TreeMap and
+ * java.util.HashMap as baselines. The hashed maps from lab08 have their
+ * own suite in lab08/tests/benchmark/Map61BBenchmark.java, which uses the
+ * same benchmark names and parameters so the results can be compared.
+ * <p>
+ * Covers put (building a map of the given size), get hits, get misses and
+ * full iteration, for random and sequential String keys. put with
+ * sequential keys is the in-order insertion that makes a plain BSTMap
+ * degenerate into a list; BSTMap-Balanced is a BSTMap constructed with
+ * balanced set, which stays O(log N) deep. BTreeMap is a B+ tree with
+ * the default fanout, which is O(log N) deep as well but follows far fewer
+ * pointers per lookup. Add -prof perfnorm on the JMH command line to count
+ * cache misses per operation where perf is available. Neither ULLMap
+ * nor BSTMap supports remove(), so there is no remove benchmark here.
+ * <p>
+ * JMH cannot generate code for classes in the default package, so this
+ * class lives in package benchmark and reaches the lab's maps through
+ * method handles for put() and get(). The baselines are called the same
+ * way, so every map pays the same indirect call.
+ * <p>
+ * main() runs the whole suite unattended and writes JSON results:
+ * <pre>
+ *     java -cp ... benchmark.BSTMapBenchmark [resultPrefix]
+ * </pre>
+ * The HUGE_SIZES runs, of 10^7 and 10^8 keys, give each fork a heap of up
+ * to 96 GB, so main() needs a machine with more memory than that.
+ * Needs jmh-core and jmh-generator-annprocess on the classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BSTMapBenchmark {
+
+    /** Sizes at which every map runs, including the O(N) ones. */
+    static final String[] SMALL_SIZES = {"1000", "10000"};
+
+    /** Sizes at which only maps with O(log N) operations run. */
+    static final String[] LARGE_SIZES = {"100000", "1000000"};
+
+    /**
+     * Sizes at which only the ordered O(log N) maps run, each paired with the
+     * heap its forks need: the keys, the filled map and the map a put
+     * benchmark builds are all live at once.
+     */
+    static final String[][] HUGE_SIZES = {{"10000000", "-Xmx16g"}, {"100000000", "-Xmx96g"}};
+
+    /** A map of SIZE keys drawn from DISTRIBUTION, plus keys that are not in it. */
+    @State(Scope.Thread)
+    public static class Filled {
+        @Param({"BSTMap", "BSTMap-Balanced", "BTreeMap"})
+        public String mapType;
+
+        /** random: random strings of length 10. sequential: strings in increasing order. */
+        @Param({"random", "sequential"})
+        public String distribution;
+
+        @Param({"1000", "10000"})
+        public int size;
+
+        Class<?> mapClass;
+        /** Creates an empty map, as ()Object. */
+        MethodHandle create;
+        /** Invokes put(key, value) on a map, as (Object, Object, Object)void. */
+        MethodHandle put;
+        /** Invokes get(key) on a map, as (Object, Object)Object. */
+        MethodHandle get;
+
+        Object map;
+        /** The keys in the map, in the order they were inserted. */
+        String[] inserts;
+        String[] hits;
+        String[] misses;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws Throwable {
+            mapClass = Class.forName(className(mapType));
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            if (mapType.equals("BSTMap-Balanced")) {
+                create = MethodHandles.insertArguments(lookup.findConstructor(mapClass,
+                        MethodType.methodType(void.class, boolean.class)), 0, true);
+            } else {
+                create = lookup.findConstructor(mapClass, MethodType.methodType(void.class));
+            }
+            create = create.asType(MethodType.methodType(Object.class));
+            put = lookup.unreflect(mapClass.getMethod("put", Object.class, Object.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class));
+            get = lookup.unreflect(mapClass.getMethod("get", Object.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+
+            String[] keys = keys(distribution, 2 * size);
+            // every other key is absent, so misses land all over the tree
+            hits = new String[size];
+            misses = new String[size];
+            for (int i = 0; i < size; i++) {
+                hits[i] = keys[2 * i];
+                misses[i] = keys[2 * i + 1];
+            }
+            inserts = hits.clone();
+            map = fill(this);
+            // look keys up in a different order than they were inserted
+            Collections.shuffle(Arrays.asList(hits), new Random(61));
+            Collections.shuffle(Arrays.asList(misses), new Random(61));
+        }
+
+        /** Returns the next index into hits or misses, cycling through them. */
+        int nextIndex() {
+            next = next + 1 == size ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object put(Filled state) throws Throwable {
+        return fill(state);
+    }
+
+    @Benchmark
+    public Object getHit(Filled state) throws Throwable {
+        return (Object) state.get.invokeExact(state.map, (Object) state.hits[state.nextIndex()]);
+    }
+
+    @Benchmark
+    public Object getMiss(Filled state) throws Throwable {
+        return (Object) state.get.invokeExact(state.map, (Object) state.misses[state.nextIndex()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @SuppressWarnings("unchecked")
+    public void iterate(Filled state, Blackhole bh) {
+        // Map61B extends Iterable; the baselines iterate over their key sets
+        Iterable<String> keys = state.map instanceof Map<?, ?> m
+                ? (Iterable<String>) m.keySet() : (Iterable<String>) state.map;
+        for (String key : keys) {
+            bh.consume(key);
+        }
+    }
+
+    /** Returns a new map of STATE's type holding STATE.inserts, put in order. */
+    static Object fill(Filled state) throws Throwable {
+        Object m = (Object) state.create.invokeExact();
+        String[] inserts = state.inserts;
+        for (int i = 0; i < inserts.length; i++) {
+            state.put.invokeExact(m, (Object) inserts[i], (Object) i);
+        }
+        return m;
+    }
+
+    /** Returns the binary name of the class for the named map type. */
+    static String className(String mapType) {
+        return switch (mapType) {
+            case "ULLMap", "BSTMap", "BTreeMap" -> mapType;
+            case "BSTMap-Balanced" -> "BSTMap";
+            case "TreeMap" -> "java.util.TreeMap";
+            case "HashMap" -> "java.util.HashMap";
+            default -> throw new IllegalArgumentException("Unknown map type " + mapType);
+        };
+    }
+
+    /** Returns N distinct keys from the named distribution, in increasing order if sequential. */
+    static String[] keys(String distribution, int N) {
+        String[] keys = new String[N];
+        switch (distribution) {
+            case "random" -> {
+                Random r = new Random(61);
+                Set<String> seen = new HashSet<>();
+                for (int i = 0; i < N; i++) {
+                    String s;
+                    do {
+                        s = randomString(r, 10);
+                    } while (!seen.add(s));
+                    keys[i] = s;
+                }
+            }
+            case "sequential" -> {
+                // fixed-width base-26 counter, so lexicographic order is numeric order
+                for (int i = 0; i < N; i++) {
+                    char[] s = new char[6];
+                    for (int j = s.length - 1, n = i; j >= 0; j--, n /= 26) {
+                        s[j] = (char) ('a' + n % 26);
+                    }
+                    keys[i] = new String(s);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown distribution " + distribution);
+        }
+        return keys;
+    }
+
+    /** Returns a random string of LENGTH lowercase letters. */
+    private static String randomString(Random r, int length) {
+        char[] s = new char[length];
+        for (int i = 0; i < length; i++) {
+            s[i] = (char) ('a' + r.nextInt(26));
+        }
+        return new String(s);
+    }
+
+    /**
+     * Runs every benchmark for every map and writes JSON results to
+     * PREFIX-small.json, PREFIX-large.json and PREFIX-huge-SIZE.json, where
+     * PREFIX is ARGS[0] or bstmap-benchmark. ULLMap and BSTMap only run at
+     * SMALL_SIZES, and HashMap does not run at HUGE_SIZES. Each put at a huge
+     * size takes seconds, so those runs use one fork and fewer iterations.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String prefix = args.length > 0 ? args[0] : "bstmap-benchmark";
+        String name = BSTMapBenchmark.class.getName();
+
+        Options small = new OptionsBuilder()
+                .include(name + "\\.")
+                .param("mapType", "ULLMap", "BSTMap", "BSTMap-Balanced", "BTreeMap", "TreeMap", "HashMap")
+                .param("size", SMALL_SIZES)
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-small.json")
+                .build();
+        Options large = new OptionsBuilder()
+                .include(name + "\\.")
+                .param("mapType", "BSTMap-Balanced", "BTreeMap", "TreeMap", "HashMap")
+                .param("size", LARGE_SIZES)
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-large.json")
+                .build();
+        new Runner(small).run();
+        new Runner(large).run();
+        for (String[] sizeAndHeap : HUGE_SIZES) {
+            Options huge = new OptionsBuilder()
+                    .include(name + "\\.")
+                    .param("mapType", "BSTMap-Balanced", "BTreeMap", "TreeMap")
+                    .param("size", sizeAndHeap[0])
+                    .jvmArgsAppend(sizeAndHeap[1])
+                    .forks(1)
+                    .warmupIterations(1)
+                    .measurementIterations(3)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(prefix + "-huge-" + sizeAndHeap[0] + ".json")
+                    .build();
+            new Runner(huge).run();
+        }
+    }
+}
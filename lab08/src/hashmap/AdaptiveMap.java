@@ -0,0 +1,287 @@
+package hashmap;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A Map61B that is cheap to create and to use while it is small, and
+ * becomes a MyHashMap once it grows.
+ * <p>
+ * Up to THRESHOLD keys are kept in a single array of alternating keys and
+ * values, which is searched linearly, in insertion order. For so few keys a
+ * scan of one contiguous array is about as fast as hashing, and there are
+ * no buckets or nodes to allocate: an empty map is one small object, and
+ * the array is only created by the first put() and grown as needed. Adding
+ * a key past THRESHOLD moves everything into a MyHashMap, which this map
+ * then delegates to. Maps that have been promoted stay hashed until
+ * clear() is called, so a map whose size hovers around THRESHOLD doesn't
+ * keep converting back and forth.
+ * <p>
+ * The update operations of Map61B scan the inline array once, or use the
+ * single-lookup versions in MyHashMap. Iteration is in insertion order
+ * while the keys are inline, and fail-fast like MyHashMap's.
+ * <p>
+ * Assumes null keys will never be inserted.
+ */
+public class AdaptiveMap<K, V> implements Map61B<K, V> {
+
+    /** Most keys held in the inline array before promoting to a MyHashMap. */
+    static final int THRESHOLD = 8;
+
+    /* Instance Variables */
+    /** Keys at even indices, each followed by its value. Null until the first put(). */
+    private Object[] inline;
+    private int inlineSize;
+    /** The hashed table, or null while the keys are inline. */
+    private MyHashMap<K, V> hashed;
+    /** Counts inline keys added and removed, and promotions, so that scans can fail fast. */
+    private int modCount;
+
+    @Override
+    public void put(K key, V value) {
+        if (hashed != null) {
+            hashed.put(key, value);
+            return;
+        }
+        int ix = indexOf(key);
+        if (ix >= 0) {
+            inline[ix + 1] = value;
+        } else {
+            append(key, value);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (hashed != null) {
+            return hashed.get(key);
+        }
+        int ix = indexOf(key);
+        return ix < 0 ? null : (V) inline[ix + 1];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return hashed != null ? hashed.containsKey(key) : indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return hashed != null ? hashed.size() : inlineSize;
+    }
+
+    /** Removes every mapping, and goes back to storing keys inline. */
+    @Override
+    public void clear() {
+        inline = null;
+        inlineSize = 0;
+        hashed = null;
+        modCount++;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        if (hashed != null) {
+            return hashed.keySet();
+        }
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        if (hashed != null) {
+            return hashed.remove(key);
+        }
+        int ix = indexOf(key);
+        if (ix < 0) {
+            return null;
+        }
+        V old = (V) inline[ix + 1];
+        removeAt(ix);
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<K> iterator() {
+        if (hashed != null) {
+            return hashed.iterator();
+        }
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int ix = 0;
+
+            @Override
+            public boolean hasNext() {
+                return ix < 2 * inlineSize;
+            }
+
+            @Override
+            public K next() {
+                checkModCount(expectedModCount);
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                K ret = (K) inline[ix];
+                ix += 2;
+                return ret;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(K key, V defaultValue) {
+        if (hashed != null) {
+            return hashed.getOrDefault(key, defaultValue);
+        }
+        int ix = indexOf(key);
+        return ix < 0 ? defaultValue : (V) inline[ix + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        if (hashed != null) {
+            return hashed.putIfAbsent(key, value);
+        }
+        int ix = indexOf(key);
+        if (ix < 0) {
+            append(key, value);
+            return null;
+        }
+        V old = (V) inline[ix + 1];
+        if (old == null) {
+            inline[ix + 1] = value;
+        }
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (hashed != null) {
+            return hashed.computeIfAbsent(key, mappingFunction);
+        }
+        int ix = indexOf(key);
+        if (ix >= 0 && inline[ix + 1] != null) {
+            return (V) inline[ix + 1];
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        checkModCount(expectedModCount);
+        if (value != null) {
+            if (ix >= 0) {
+                inline[ix + 1] = value;
+            } else {
+                append(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        if (hashed != null) {
+            return hashed.merge(key, value, remappingFunction);
+        }
+        int ix = indexOf(key);
+        if (ix < 0) {
+            append(key, value);
+            return value;
+        }
+        V old = (V) inline[ix + 1];
+        int expectedModCount = modCount;
+        V newValue = old == null ? value : remappingFunction.apply(old, value);
+        checkModCount(expectedModCount);
+        if (newValue == null) {
+            removeAt(ix);
+        } else {
+            inline[ix + 1] = newValue;
+        }
+        return newValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V adjustOrPut(K key, Function<? super V, ? extends V> adjust, V putValue) {
+        if (hashed != null) {
+            return hashed.adjustOrPut(key, adjust, putValue);
+        }
+        int ix = indexOf(key);
+        if (ix < 0) {
+            append(key, putValue);
+            return putValue;
+        }
+        int expectedModCount = modCount;
+        V value = adjust.apply((V) inline[ix + 1]);
+        checkModCount(expectedModCount);
+        inline[ix + 1] = value;
+        return value;
+    }
+
+    /** Returns whether the keys have been moved into a MyHashMap. */
+    public boolean isHashed() {
+        return hashed != null;
+    }
+
+    /** Returns the index in the inline array of KEY, or -1 if KEY is not present. */
+    private int indexOf(K key) {
+        for (int ix = 0; ix < 2 * inlineSize; ix += 2) {
+            if (key.equals(inline[ix])) {
+                return ix;
+            }
+        }
+        return -1;
+    }
+
+    /** Adds KEY, which is not present, after the other inline keys, promoting the map if they are full. */
+    @SuppressWarnings("unchecked")
+    private void append(K key, V value) {
+        if (inlineSize == THRESHOLD) {
+            hashed = MyHashMap.withExpectedSize(2 * THRESHOLD);
+            for (int ix = 0; ix < 2 * inlineSize; ix += 2) {
+                hashed.put((K) inline[ix], (V) inline[ix + 1]);
+            }
+            hashed.put(key, value);
+            inline = null;
+            inlineSize = 0;
+            modCount++;
+            return;
+        }
+        if (inline == null) {
+            inline = new Object[4];
+        } else if (2 * inlineSize == inline.length) {
+            inline = Arrays.copyOf(inline, Math.min(2 * inline.length, 2 * THRESHOLD));
+        }
+        inline[2 * inlineSize] = key;
+        inline[2 * inlineSize + 1] = value;
+        inlineSize++;
+        modCount++;
+    }
+
+    /** Removes the inline key at IX, shifting later keys down to keep them in insertion order. */
+    private void removeAt(int ix) {
+        inlineSize--;
+        System.arraycopy(inline, ix + 2, inline, ix, 2 * inlineSize - ix);
+        inline[2 * inlineSize] = null;
+        inline[2 * inlineSize + 1] = null;
+        modCount++;
+    }
+
+    /** Throws ConcurrentModificationException if the map was modified since modCount was EXPECTEDMODCOUNT. */
+    private void checkModCount(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package hashmap;
+
+import java.util.Objects;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A MyHashMap that holds at most a fixed total weight of entries, for use as
+ * a memo cache. Once a put() takes the cache over its maximum weight, the
+ * eviction policy picks entries to remove until it fits again.
+ * <p>
+ * Like java.util.LinkedHashMap, the cache's nodes are MyHashMap nodes that
+ * also carry the links of an intrusive doubly linked list, kept in order by
+ * MyHashMap's node hooks. Reordering an entry never allocates, and get() and
+ * put() stay O(1) under every policy:
+ * <ul>
+ * <li>LRU evicts the least recently used entry.
+ * <li>LFU evicts the least frequently used entry, and the least recently
+ *     used of those on a tie. Entries are kept in a list of per-frequency
+ *     lists, so a use moves an entry to the neighbouring list.
+ * <li>TINY_LFU is W-TinyLFU. New entries enter a small LRU window. Entries
+ *     pushed out of the window must beat the main space's LRU entry, by their
+ *     estimated frequency in a count-min sketch of recent gets, to be kept.
+ *     The main space is a segmented LRU: entries used again while on
+ *     probation are promoted to the protected segment. This keeps one-off
+ *     keys, such as those of a scan, from flushing out frequently used ones.
+ * </ul>
+ * get() and put() of a present key count as uses; containsKey() does not.
+ * Every entry weighs 1 unless a weigher is given. An entry heavier than the
+ * maximum weight can never fit, so put() evicts that entry alone and leaves
+ * the others be.
+ * <p>
+ * Assumes null keys and null values will never be inserted; put() rejects a
+ * null value, since get() returns null to mean a miss.
+ */
+public class BoundedCache<K, V> extends MyHashMap<K, V> {
+
+    /** The eviction policies a BoundedCache can use. */
+    public enum EvictionPolicy {
+        LRU, LFU, TINY_LFU
+    }
+
+    /* Segments of W-TinyLFU that a node can be in. */
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    /* Instance Variables */
+    private final long maximumWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final Policy policy;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache that holds at most MAXIMUMSIZE entries.
+     */
+    public BoundedCache(long maximumSize, EvictionPolicy policy) {
+        this(maximumSize, policy, null);
+    }
+
+    /**
+     * Creates a cache whose entries weigh at most MAXIMUMWEIGHT in total.
+     *
+     * @param maximumWeight the largest total weight of the entries
+     * @param policy        how to choose the entries to evict
+     * @param weigher       returns the weight of an entry, which must not be
+     *                      negative; null gives every entry a weight of 1
+     */
+    public BoundedCache(long maximumWeight, EvictionPolicy policy,
+                        ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.policy = switch (policy) {
+            case LRU -> new Lru();
+            case LFU -> new Lfu();
+            case TINY_LFU -> new WindowTinyLfu();
+        };
+    }
+
+    @Override
+    public void put(K key, V value) {
+        super.put(key, Objects.requireNonNull(value));
+    }
+
+    /** Returns the value for KEY, or null on a miss, and counts the hit or miss. */
+    @Override
+    public V get(K key) {
+        V value = super.get(key);
+        if (value == null) {
+            misses++;
+            policy.onMiss(hashOf(key));
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        policy.clear();
+        weight = 0;
+    }
+
+    /** Returns the number of gets that found their key. */
+    public long hits() {
+        return hits;
+    }
+
+    /** Returns the number of gets that did not find their key. */
+    public long misses() {
+        return misses;
+    }
+
+    /** Returns the fraction of gets that found their key, or 0 if there were none. */
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /** Returns the number of entries removed to make room for others. */
+    public long evictions() {
+        return evictions;
+    }
+
+    /** Returns the total weight of the entries in the cache. */
+    public long weight() {
+        return weight;
+    }
+
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    @Override
+    protected Node createNode(K key, V value, int hashVal) {
+        return new CacheNode(key, value, hashVal);
+    }
+
+    @Override
+    protected void afterNodeInsertion(Node node) {
+        CacheNode n = (CacheNode) node;
+        n.weight = weigh(n);
+        weight += n.weight;
+        policy.onInsert(n);
+        evictIfNeeded(n);
+    }
+
+    @Override
+    protected void afterNodeAccess(Node node) {
+        CacheNode n = (CacheNode) node;
+        if (weigher != null && n.value != n.weighedValue) {
+            // put() replaced the value
+            long newWeight = weigh(n);
+            NodeList list = policy.listOf(n);
+            list.remove(n);
+            weight += newWeight - n.weight;
+            n.weight = newWeight;
+            list.addLast(n);
+        }
+        policy.onAccess(n);
+        evictIfNeeded(n);
+    }
+
+    @Override
+    protected void afterNodeRemoval(Node node) {
+        CacheNode n = (CacheNode) node;
+        weight -= n.weight;
+        policy.onRemove(n);
+    }
+
+    private long weigh(CacheNode n) {
+        n.weighedValue = n.value;
+        if (weigher == null) {
+            return 1;
+        }
+        long w = weigher.applyAsLong(n.key, n.value);
+        if (w < 0) {
+            throw new IllegalArgumentException("negative weight for " + n.key);
+        }
+        return w;
+    }
+
+    /** Evicts entries until the cache fits, starting with N if N can never fit. */
+    private void evictIfNeeded(CacheNode n) {
+        if (n.weight > maximumWeight) {
+            remove(n.key);
+            evictions++;
+        }
+        while (weight > maximumWeight && size() > 0) {
+            remove(policy.victim().key);
+            evictions++;
+        }
+    }
+
+    /** A node that is also an element of one of the policy's lists. */
+    private class CacheNode extends Node {
+        CacheNode prev;
+        CacheNode next;
+        long weight;
+        /** The value that weight was computed for. */
+        V weighedValue;
+        /** LFU: the list of nodes with this node's frequency. */
+        FrequencyList frequencyList;
+        /** W-TinyLFU: the segment this node is in. */
+        int segment;
+
+        CacheNode(K k, V v, int h) {
+            super(k, v, h);
+        }
+    }
+
+    /**
+     * A circular doubly linked list of nodes with a sentinel, ordered from
+     * least recently used (first) to most recently used (last). Keeps the
+     * total weight of its nodes.
+     */
+    private class NodeList {
+        private final CacheNode sentinel = new CacheNode(null, null, 0);
+        long weight;
+
+        NodeList() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        boolean isEmpty() {
+            return sentinel.next == sentinel;
+        }
+
+        /** Returns the least recently used node, or null if empty. */
+        CacheNode first() {
+            return isEmpty() ? null : sentinel.next;
+        }
+
+        /** Returns the most recently used node, or null if empty. */
+        CacheNode last() {
+            return isEmpty() ? null : sentinel.prev;
+        }
+
+        void addLast(CacheNode n) {
+            n.prev = sentinel.prev;
+            n.next = sentinel;
+            sentinel.prev.next = n;
+            sentinel.prev = n;
+            weight += n.weight;
+        }
+
+        void remove(CacheNode n) {
+            n.prev.next = n.next;
+            n.next.prev = n.prev;
+            n.prev = null;
+            n.next = null;
+            weight -= n.weight;
+        }
+
+        void moveToLast(CacheNode n) {
+            remove(n);
+            addLast(n);
+        }
+    }
+
+    /** Keeps the nodes in the order the policy evicts them. */
+    private abstract class Policy {
+        abstract void onInsert(CacheNode n);
+
+        abstract void onAccess(CacheNode n);
+
+        abstract void onRemove(CacheNode n);
+
+        /** Called when get() misses a key whose spread hash is HASH. */
+        void onMiss(int hash) {
+        }
+
+        /** Returns the list that N is in. */
+        abstract NodeList listOf(CacheNode n);
+
+        /** Returns the node to evict next. The cache must not be empty. */
+        abstract CacheNode victim();
+
+        abstract void clear();
+    }
+
+    private class Lru extends Policy {
+        private NodeList list = new NodeList();
+
+        @Override
+        void onInsert(CacheNode n) {
+            list.addLast(n);
+        }
+
+        @Override
+        void onAccess(CacheNode n) {
+            list.moveToLast(n);
+        }
+
+        @Override
+        void onRemove(CacheNode n) {
+            list.remove(n);
+        }
+
+        @Override
+        NodeList listOf(CacheNode n) {
+            return list;
+        }
+
+        @Override
+        CacheNode victim() {
+            return list.first();
+        }
+
+        @Override
+        void clear() {
+            list = new NodeList();
+        }
+    }
+
+    /** The nodes used exactly FREQUENCY times, in a list of such lists. */
+    private class FrequencyList {
+        final long frequency;
+        FrequencyList prev;
+        FrequencyList next;
+        final NodeList nodes = new NodeList();
+
+        FrequencyList(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    /**
+     * LFU in O(1): a circular list of FrequencyLists in increasing order of
+     * frequency, with no empty ones. A use moves a node from its list to the
+     * next one, creating that list if its frequency is missing.
+     */
+    private class Lfu extends Policy {
+        private final FrequencyList sentinel = new FrequencyList(0);
+
+        Lfu() {
+            clear();
+        }
+
+        @Override
+        void onInsert(CacheNode n) {
+            moveTo(n, sentinel);
+        }
+
+        @Override
+        void onAccess(CacheNode n) {
+            FrequencyList from = n.frequencyList;
+            from.nodes.remove(n);
+            moveTo(n, from);
+            if (from.nodes.isEmpty()) {
+                unlink(from);
+            }
+        }
+
+        /** Adds N to the list after FROM, whose frequency must be one higher. */
+        private void moveTo(CacheNode n, FrequencyList from) {
+            FrequencyList to = from.next;
+            if (to == sentinel || to.frequency != from.frequency + 1) {
+                to = new FrequencyList(from.frequency + 1);
+                to.prev = from;
+                to.next = from.next;
+                from.next.prev = to;
+                from.next = to;
+            }
+            to.nodes.addLast(n);
+            n.frequencyList = to;
+        }
+
+        @Override
+        void onRemove(CacheNode n) {
+            FrequencyList list = n.frequencyList;
+            list.nodes.remove(n);
+            if (list.nodes.isEmpty()) {
+                unlink(list);
+            }
+            n.frequencyList = null;
+        }
+
+        private void unlink(FrequencyList list) {
+            list.prev.next = list.next;
+            list.next.prev = list.prev;
+        }
+
+        @Override
+        NodeList listOf(CacheNode n) {
+            return n.frequencyList.nodes;
+        }
+
+        @Override
+        CacheNode victim() {
+            return sentinel.next.nodes.first();
+        }
+
+        @Override
+        void clear() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+    }
+
+    /**
+     * W-TinyLFU with a window of 1% of the maximum weight and a protected
+     * segment of 80% of the rest.
+     */
+    private class WindowTinyLfu extends Policy {
+        private final long windowMax = Math.max(1, maximumWeight / 100);
+        private final long protectedMax = (maximumWeight - windowMax) * 4 / 5;
+        private final FrequencySketch sketch = new FrequencySketch(maximumWeight);
+        private NodeList window;
+        private NodeList probation;
+        private NodeList protectedList;
+
+        WindowTinyLfu() {
+            clear();
+        }
+
+        @Override
+        void onInsert(CacheNode n) {
+            sketch.increment(n.hash);
+            n.segment = WINDOW;
+            window.addLast(n);
+            // entries pushed out of the window become candidates at the
+            // most recently used end of probation, see victim()
+            while (window.weight > windowMax) {
+                CacheNode c = window.first();
+                window.remove(c);
+                c.segment = PROBATION;
+                probation.addLast(c);
+            }
+        }
+
+        @Override
+        void onAccess(CacheNode n) {
+            sketch.increment(n.hash);
+            switch (n.segment) {
+                case WINDOW -> window.moveToLast(n);
+                case PROTECTED -> protectedList.moveToLast(n);
+                default -> {
+                    probation.remove(n);
+                    n.segment = PROTECTED;
+                    protectedList.addLast(n);
+                    while (protectedList.weight > protectedMax) {
+                        CacheNode d = protectedList.first();
+                        protectedList.remove(d);
+                        d.segment = PROBATION;
+                        probation.addLast(d);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void onMiss(int hash) {
+            // count misses too, so a key has a history by the time it is put
+            sketch.increment(hash);
+        }
+
+        @Override
+        void onRemove(CacheNode n) {
+            listOf(n).remove(n);
+        }
+
+        @Override
+        NodeList listOf(CacheNode n) {
+            return switch (n.segment) {
+                case WINDOW -> window;
+                case PROTECTED -> protectedList;
+                default -> probation;
+            };
+        }
+
+        /**
+         * Pits the newest entry on probation, the candidate, against the
+         * oldest, the victim, and returns whichever the sketch says is used
+         * less often. Ties go against the candidate, to resist churn.
+         */
+        @Override
+        CacheNode victim() {
+            CacheNode victim = probation.first();
+            if (victim == null) {
+                return protectedList.isEmpty() ? window.first() : protectedList.first();
+            }
+            CacheNode candidate = probation.last();
+            if (candidate == victim) {
+                return victim;
+            }
+            return sketch.frequency(candidate.hash) > sketch.frequency(victim.hash) ? victim : candidate;
+        }
+
+        @Override
+        void clear() {
+            window = new NodeList();
+            probation = new NodeList();
+            protectedList = new NodeList();
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters, sixteen to a long, estimating how
+     * often each hash has been seen. Four counters per hash, one from each
+     * quarter of a long picked by the hash; the estimate is their minimum.
+     * Once there have been ten times as many increments as longs, every
+     * counter is halved, so the sketch favours recent history.
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97CB3127, 0xB1A83F1D, 0x3C6EF372, 0x5A827999};
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long maximumWeight) {
+            int size = OpenAddressingMap.tableSizeFor((int) Math.max(16, Math.min(maximumWeight, 1 << 24)));
+            table = new long[size];
+            mask = size - 1;
+            sampleSize = 10 * size;
+        }
+
+        /** Returns the index of the long holding row I's counter for HASH. */
+        private int indexOf(int hash, int i) {
+            int h = (hash ^ SEEDS[i]) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        /** Returns the bit offset of row I's counter within its long: row I uses counters 4i..4i+3. */
+        private static int shiftOf(int hash, int i) {
+            return ((i << 2) + ((hash >>> (i << 3)) & 3)) << 2;
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < 4; i++) {
+                min = Math.min(min, (int) ((table[indexOf(hash, i)] >>> shiftOf(hash, i)) & 0xF));
+            }
+            return min;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int ix = indexOf(hash, i);
+                int shift = shiftOf(hash, i);
+                if (((table[ix] >>> shift) & 0xF) < 15) {
+                    table[ix] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int ix = 0; ix < table.length; ix++) {
+                table[ix] = (table[ix] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package hashmap;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe hash table-backed Map implementation.
+ * <p>
+ * Writers lock one of a fixed number of stripes, chosen by the key's hash,
+ * so puts and removes on different stripes run in parallel. Readers never
+ * lock: get() and containsKey() read the current table and walk a bucket
+ * of nodes whose value and next fields are volatile.
+ * <p>
+ * The table size is a power of two and never smaller than the number of
+ * stripes, so every bucket belongs to the same stripe at every size. A
+ * resize takes all stripe locks, copies the nodes into a new table and then
+ * publishes it. Readers that are still walking the old table see a complete,
+ * unchanged copy of it.
+ * <p>
+ * Iteration and keySet() are weakly consistent: they reflect some state of
+ * the map at or after their creation and never throw
+ * ConcurrentModificationException.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon remove().
+ */
+public class ConcurrentMyHashMap<K, V> implements Map61B<K, V> {
+
+    /** Number of write locks. Must be a power of two. */
+    private static final int STRIPES = 64;
+
+    /* Instance Variables */
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+    private final ReentrantLock[] locks;
+    private final LongAdder itemNum = new LongAdder();
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public ConcurrentMyHashMap() {
+        this(STRIPES, 0.75);
+    }
+
+    public ConcurrentMyHashMap(int initialCapacity) {
+        this(initialCapacity, 0.75);
+    }
+
+    /**
+     * ConcurrentMyHashMap constructor that creates a backing array of at
+     * least initialCapacity buckets, rounded up to a power of two.
+     * The load factor (# items / # buckets) should always be <= loadFactor
+     *
+     * @param initialCapacity initial size of backing array
+     * @param loadFactor      maximum load factor
+     */
+    public ConcurrentMyHashMap(int initialCapacity, double loadFactor) {
+        if (!(loadFactor > 0)) {
+            throw new IllegalArgumentException("loadFactor must be positive");
+        }
+        this.loadFactor = loadFactor;
+        this.initialCapacity = OpenAddressingMap.tableSizeFor(Math.max(initialCapacity, STRIPES));
+        locks = new ReentrantLock[STRIPES];
+        for (int ix = 0; ix < STRIPES; ix++) {
+            locks[ix] = new ReentrantLock();
+        }
+        table = new AtomicReferenceArray<>(this.initialCapacity);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        ReentrantLock lock = locks[hash & (STRIPES - 1)];
+        boolean added = false;
+        AtomicReferenceArray<Node<K, V>> tab;
+        lock.lock();
+        try {
+            // read the table only once the stripe is locked, so no resize is in progress
+            tab = table;
+            int ix = hash & (tab.length() - 1);
+            Node<K, V> first = tab.get(ix);
+            Node<K, V> node = find(first, key, hash);
+            if (node != null) {
+                node.value = value;
+            } else {
+                tab.set(ix, new Node<>(hash, key, value, first));
+                itemNum.increment();
+                added = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (added && itemNum.sum() > loadFactor * tab.length()) {
+            resize(tab);
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        Node<K, V> node = find(tab.get(hash & (tab.length() - 1)), key, hash);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        return find(tab.get(hash & (tab.length() - 1)), key, hash) != null;
+    }
+
+    @Override
+    public int size() {
+        return (int) itemNum.sum();
+    }
+
+    @Override
+    public void clear() {
+        lockAll();
+        try {
+            table = new AtomicReferenceArray<>(initialCapacity);
+            itemNum.reset();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    public V remove(K key) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        ReentrantLock lock = locks[hash & (STRIPES - 1)];
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int ix = hash & (tab.length() - 1);
+            Node<K, V> prev = null;
+            for (Node<K, V> node = tab.get(ix); node != null; prev = node, node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    // readers positioned on node still reach the rest of the bucket
+                    if (prev == null) {
+                        tab.set(ix, node.next);
+                    } else {
+                        prev.next = node.next;
+                    }
+                    itemNum.decrement();
+                    return node.value;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator(table);
+    }
+
+    /**
+     * Node in a bucket's linked list. Fields that writers change after
+     * publishing the node are volatile so lock-free readers see them.
+     */
+    private static final class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** Returns the node for KEY in the bucket starting at NODE, or null. */
+    private static <K, V> Node<K, V> find(Node<K, V> node, K key, int hash) {
+        for (; node != null; node = node.next) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Doubles the table, unless another thread has already replaced OLDTAB.
+     * Nodes are copied rather than relinked, so the old table stays intact
+     * for readers that are still using it.
+     */
+    private void resize(AtomicReferenceArray<Node<K, V>> oldTab) {
+        lockAll();
+        try {
+            if (table != oldTab) {
+                return;
+            }
+            int newLength = oldTab.length() * 2;
+            AtomicReferenceArray<Node<K, V>> newTab = new AtomicReferenceArray<>(newLength);
+            for (int ix = 0; ix < oldTab.length(); ix++) {
+                for (Node<K, V> node = oldTab.get(ix); node != null; node = node.next) {
+                    int newIx = node.hash & (newLength - 1);
+                    newTab.set(newIx, new Node<>(node.hash, node.key, node.value, newTab.get(newIx)));
+                }
+            }
+            table = newTab;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int ix = STRIPES - 1; ix >= 0; ix--) {
+            locks[ix].unlock();
+        }
+    }
+
+    /** A weakly consistent iterator over the table that was current when it was created. */
+    private class KeyIterator implements Iterator<K> {
+        private final AtomicReferenceArray<Node<K, V>> tab;
+        private int ix;
+        private Node<K, V> next;
+
+        KeyIterator(AtomicReferenceArray<Node<K, V>> tab) {
+            this.tab = tab;
+            advance();
+        }
+
+        private void advance() {
+            while (next == null && ix < tab.length()) {
+                next = tab.get(ix++);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public K next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            K ret = next.key;
+            next = next.next;
+            advance();
+            return ret;
+        }
+    }
+}
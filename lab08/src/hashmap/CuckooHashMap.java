@@ -0,0 +1,373 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A Map61B implementation that uses bucketized cuckoo hashing.
+ * <p>
+ * The table is an array of buckets of four slots each. Every key has two
+ * candidate buckets, chosen by two seeded hash functions of its cached
+ * hash code, and is always stored in one of them or in a small stash. So
+ * get() and containsKey() look at no more than eight slots and the stash,
+ * whether the key is present or not; cached hashes let most of those
+ * checks skip equals(). Like OpenAddressingMap, the slots are parallel
+ * arrays of keys, values and hashes.
+ * <p>
+ * put() stores a new key in an empty slot of either of its buckets. If both
+ * are full, it evicts a random key from one of them, which then moves to its
+ * other bucket, possibly evicting another key, and so on. If that walk has
+ * not found an empty slot after MAX_KICKS moves, the key left over goes to
+ * the stash. When the stash overflows, the table is rebuilt with new hash
+ * functions, and grows when it is full past its load factor.
+ * <p>
+ * Keys whose hash codes are all equal always share the same two buckets,
+ * and no hash function can separate them. When rebuilding cannot bring the
+ * stash back to STASH_SIZE, the stash is allowed to grow instead, so such
+ * keys cost a linear search of the stash, as they would in a single bucket.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon remove().
+ */
+public class CuckooHashMap<K, V> implements Map61B<K, V> {
+
+    /** Slots per bucket. Must be a power of two. */
+    private static final int SLOTS = 4;
+    /** Number of stashed keys that is normal, and never triggers a rebuild. */
+    private static final int STASH_SIZE = 4;
+    /** Evictions before an insertion gives up and stashes the key it is holding. */
+    private static final int MAX_KICKS = 256;
+    /** Attempts to rebuild the table with new hash functions before accepting a bigger stash. */
+    private static final int MAX_REHASHES = 3;
+
+    /* Instance Variables */
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int bucketMask;
+    private int seed1;
+    private int seed2;
+    private Object[] stashKeys;
+    private Object[] stashValues;
+    private int[] stashHashes;
+    private int stashSize;
+    /** Size the stash may reach before the table is rebuilt. */
+    private int stashLimit;
+    private int itemNum;
+    private int resizeThreshold;
+    /** State of the generator that seeds hash functions and picks keys to evict. */
+    private long random = 61;
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public CuckooHashMap() {
+        this(16, 0.85);
+    }
+
+    public CuckooHashMap(int initialCapacity) {
+        this(initialCapacity, 0.85);
+    }
+
+    /**
+     * CuckooHashMap constructor that creates a table of at least
+     * initialCapacity slots, rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= loadFactor
+     *
+     * @param initialCapacity initial number of slots
+     * @param loadFactor      maximum load factor, must be in (0, 1)
+     */
+    public CuckooHashMap(int initialCapacity, double loadFactor) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        this.initialCapacity = OpenAddressingMap.tableSizeFor(Math.max(initialCapacity, 2 * SLOTS));
+        createTable(this.initialCapacity);
+        createStash(STASH_SIZE);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        int ix = indexOf(key, hash);
+        if (ix >= 0) {
+            values[ix] = value;
+            return;
+        }
+        if (ix != -1) {
+            stashValues[-2 - ix] = value;
+            return;
+        }
+        itemNum++;
+        if (itemNum > resizeThreshold) {
+            rebuild(keys.length * 2);
+        }
+        place(key, value, hash);
+        if (stashSize > stashLimit) {
+            rebuild(keys.length);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int ix = indexOf(key, OpenAddressingMap.spread(key.hashCode()));
+        if (ix >= 0) {
+            return (V) values[ix];
+        }
+        return ix == -1 ? null : (V) stashValues[-2 - ix];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return indexOf(key, OpenAddressingMap.spread(key.hashCode())) != -1;
+    }
+
+    @Override
+    public int size() {
+        return itemNum;
+    }
+
+    @Override
+    public void clear() {
+        createTable(initialCapacity);
+        createStash(STASH_SIZE);
+        itemNum = 0;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int ix = indexOf(key, OpenAddressingMap.spread(key.hashCode()));
+        if (ix == -1) {
+            return null;
+        }
+        V old;
+        if (ix >= 0) {
+            old = (V) values[ix];
+            keys[ix] = null;
+            values[ix] = null;
+            hashes[ix] = 0;
+        } else {
+            // fill the hole with the last stashed key
+            int s = -2 - ix;
+            old = (V) stashValues[s];
+            stashSize--;
+            stashKeys[s] = stashKeys[stashSize];
+            stashValues[s] = stashValues[stashSize];
+            stashHashes[s] = stashHashes[stashSize];
+            stashKeys[stashSize] = null;
+            stashValues[stashSize] = null;
+        }
+        itemNum--;
+        return old;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Returns the slot holding KEY, -2 - i if KEY is at index i of the
+     * stash, or -1 if KEY is not present.
+     */
+    private int indexOf(K key, int hash) {
+        int ix = bucket1(hash) * SLOTS;
+        for (int end = ix + SLOTS; ix < end; ix++) {
+            if (hashes[ix] == hash && key.equals(keys[ix])) {
+                return ix;
+            }
+        }
+        ix = bucket2(hash) * SLOTS;
+        for (int end = ix + SLOTS; ix < end; ix++) {
+            if (hashes[ix] == hash && key.equals(keys[ix])) {
+                return ix;
+            }
+        }
+        for (int s = 0; s < stashSize; s++) {
+            if (stashHashes[s] == hash && key.equals(stashKeys[s])) {
+                return -2 - s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a key that is not in the map yet, evicting keys to their other
+     * buckets as needed. Stashes the key left over if that goes on too long.
+     */
+    private void place(Object key, Object value, int hash) {
+        int b1 = bucket1(hash);
+        int b2 = bucket2(hash);
+        if (store(b1, key, value, hash) || store(b2, key, value, hash)) {
+            return;
+        }
+        int bucket = (nextRandom() & 1) == 0 ? b1 : b2;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int ix = bucket * SLOTS + (nextRandom() & (SLOTS - 1));
+            Object evictedKey = keys[ix];
+            Object evictedValue = values[ix];
+            int evictedHash = hashes[ix];
+            keys[ix] = key;
+            values[ix] = value;
+            hashes[ix] = hash;
+            key = evictedKey;
+            value = evictedValue;
+            hash = evictedHash;
+
+            b1 = bucket1(hash);
+            bucket = b1 == bucket ? bucket2(hash) : b1;
+            if (store(bucket, key, value, hash)) {
+                return;
+            }
+        }
+        stash(key, value, hash);
+    }
+
+    /** Stores the entry in an empty slot of BUCKET, or returns false if there is none. */
+    private boolean store(int bucket, Object key, Object value, int hash) {
+        int ix = bucket * SLOTS;
+        for (int end = ix + SLOTS; ix < end; ix++) {
+            if (keys[ix] == null) {
+                keys[ix] = key;
+                values[ix] = value;
+                hashes[ix] = hash;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void stash(Object key, Object value, int hash) {
+        if (stashSize == stashKeys.length) {
+            stashKeys = Arrays.copyOf(stashKeys, stashSize * 2);
+            stashValues = Arrays.copyOf(stashValues, stashSize * 2);
+            stashHashes = Arrays.copyOf(stashHashes, stashSize * 2);
+        }
+        stashKeys[stashSize] = key;
+        stashValues[stashSize] = value;
+        stashHashes[stashSize] = hash;
+        stashSize++;
+    }
+
+    /**
+     * Moves every entry into a table of NEWCAPACITY slots with new hash
+     * functions, retrying with other hash functions while the stash
+     * overflows. If it still overflows, raises the stash limit so that
+     * the next rebuild waits until the stash has doubled.
+     */
+    private void rebuild(int newCapacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        Object[] oldStashKeys = stashKeys;
+        Object[] oldStashValues = stashValues;
+        int[] oldStashHashes = stashHashes;
+        int oldStashSize = stashSize;
+        for (int attempt = 1; ; attempt++) {
+            createTable(newCapacity);
+            createStash(Math.max(STASH_SIZE, oldStashSize));
+            for (int ix = 0; ix < oldKeys.length; ix++) {
+                if (oldKeys[ix] != null) {
+                    place(oldKeys[ix], oldValues[ix], oldHashes[ix]);
+                }
+            }
+            for (int s = 0; s < oldStashSize; s++) {
+                place(oldStashKeys[s], oldStashValues[s], oldStashHashes[s]);
+            }
+            if (stashSize <= STASH_SIZE || attempt == MAX_REHASHES) {
+                stashLimit = Math.max(STASH_SIZE, 2 * stashSize);
+                return;
+            }
+        }
+    }
+
+    /** Creates an empty table of TABLESIZE slots, with new hash functions. */
+    private void createTable(int tableSize) {
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        bucketMask = tableSize / SLOTS - 1;
+        resizeThreshold = (int) (tableSize * loadFactor);
+        seed1 = nextRandom();
+        seed2 = nextRandom();
+    }
+
+    private void createStash(int capacity) {
+        stashKeys = new Object[capacity];
+        stashValues = new Object[capacity];
+        stashHashes = new int[capacity];
+        stashSize = 0;
+        stashLimit = STASH_SIZE;
+    }
+
+    private int bucket1(int hash) {
+        return mix(hash ^ seed1) & bucketMask;
+    }
+
+    private int bucket2(int hash) {
+        return mix(hash ^ seed2) & bucketMask;
+    }
+
+    /** The MurmurHash3 finalizer, so that the two seeds give unrelated buckets. */
+    private static int mix(int h) {
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns the next value of a SplitMix64 generator. */
+    private int nextRandom() {
+        long z = random += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+
+    /** An iterator over the table's slots in order, and then the stash. */
+    private class KeyIterator implements Iterator<K> {
+        private int ix = advance(0);
+        private int stashIx;
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ix < keys.length || stashIx < stashSize;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (ix < keys.length) {
+                K ret = (K) keys[ix];
+                ix = advance(ix + 1);
+                return ret;
+            }
+            return (K) stashKeys[stashIx++];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package hashmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics that a MyHashMap collects once enableStats() has been called,
+ * to explain where its time goes for a given key set.
+ * <p>
+ * A probe is one key comparison in a lookup: one node of a list bucket, or
+ * one tree node visited in a TreeBucket. Probe counts are recorded for get()
+ * and containsKey(), and reported separately for hits and misses. Resizes
+ * include every rebuild of the table, growing or shrinking, and their time
+ * includes the migration work of incremental resizes. The load factor is
+ * sampled just before and just after every resize, so the history shows
+ * how full the table got before each one.
+ * <p>
+ * The bucket-length histogram is computed by MyHashMap.stats() when it is
+ * called; everything else is counted as the map is used.
+ */
+public class HashMapStats {
+
+    /** The load of a MyHashMap after OPERATIONS calls to put, get, containsKey or remove. */
+    public record LoadSample(long operations, int items, int buckets) {
+        public double loadFactor() {
+            return (double) items / buckets;
+        }
+    }
+
+    private long operations;
+    private long hits;
+    private long hitProbes;
+    private int maxHitProbes;
+    private long misses;
+    private long missProbes;
+    private int maxMissProbes;
+    private int resizes;
+    private long resizeNanos;
+    private final List<LoadSample> loadHistory = new ArrayList<>();
+    private int[] bucketLengths = new int[0];
+
+    HashMapStats() {
+    }
+
+    /* Recording, called by MyHashMap */
+
+    void recordOperation() {
+        operations++;
+    }
+
+    void recordLookup(boolean hit, int probes) {
+        if (hit) {
+            hits++;
+            hitProbes += probes;
+            maxHitProbes = Math.max(maxHitProbes, probes);
+        } else {
+            misses++;
+            missProbes += probes;
+            maxMissProbes = Math.max(maxMissProbes, probes);
+        }
+    }
+
+    void recordResize() {
+        resizes++;
+    }
+
+    void recordResizeTime(long nanos) {
+        resizeNanos += nanos;
+    }
+
+    void recordLoad(int items, int buckets) {
+        loadHistory.add(new LoadSample(operations, items, buckets));
+    }
+
+    void setBucketLengths(int[] bucketLengths) {
+        this.bucketLengths = bucketLengths;
+    }
+
+    /* Reporting */
+
+    /** Returns the number of lookups that found their key. */
+    public long hits() {
+        return hits;
+    }
+
+    /** Returns the number of lookups that did not find their key. */
+    public long misses() {
+        return misses;
+    }
+
+    public double averageHitProbes() {
+        return hits == 0 ? 0 : (double) hitProbes / hits;
+    }
+
+    public int maxHitProbes() {
+        return maxHitProbes;
+    }
+
+    public double averageMissProbes() {
+        return misses == 0 ? 0 : (double) missProbes / misses;
+    }
+
+    public int maxMissProbes() {
+        return maxMissProbes;
+    }
+
+    public int resizes() {
+        return resizes;
+    }
+
+    /** Returns the total time spent resizing, in nanoseconds. */
+    public long resizeNanos() {
+        return resizeNanos;
+    }
+
+    /** Returns the load factor samples, oldest first. */
+    public List<LoadSample> loadHistory() {
+        return Collections.unmodifiableList(loadHistory);
+    }
+
+    /**
+     * Returns a histogram of bucket lengths: element i is the number of
+     * buckets holding exactly i keys, as of the last call to MyHashMap.stats().
+     */
+    public int[] bucketLengths() {
+        return bucketLengths.clone();
+    }
+
+    /** Returns a multi-line summary, for printing next to timings. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("  lookups: %d hits, avg %.2f / max %d probes; %d misses, avg %.2f / max %d probes%n",
+                hits, averageHitProbes(), maxHitProbes, misses, averageMissProbes(), maxMissProbes));
+        sb.append(String.format("  resizes: %d, %.2f ms total%n", resizes, resizeNanos / 1e6));
+        sb.append("  bucket lengths:");
+        for (int len = 0; len < bucketLengths.length; len++) {
+            if (bucketLengths[len] > 0) {
+                sb.append(' ').append(len).append(':').append(bucketLengths[len]);
+            }
+        }
+        sb.append(String.format("%n  load factor:"));
+        for (LoadSample s : loadHistory) {
+            sb.append(String.format(" %.2f@%d", s.loadFactor(), s.operations()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package hashmap;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * How a MyHashMap hashes and compares its keys, in place of their own
+ * hashCode() and equals().
+ * <p>
+ * standard() uses hashCode() and equals(), as a MyHashMap does by default.
+ * Anyone who can choose the keys can then choose their buckets: distinct
+ * Strings with equal hashCode() are easy to generate, and putting many of
+ * them slows every operation on their bucket (hash flooding).
+ * <p>
+ * seeded() hashes a String's characters with SipHash-1-3, keyed by 128
+ * random bits drawn for each strategy, so which Strings collide depends on a
+ * key the client never sees. Other keys have their hashCode() mixed with
+ * the same key. That still separates keys whose hashCode() differs, but
+ * keys with equal hashCode() stay equal; for those, give of() a hash over
+ * the key's contents.
+ * <p>
+ * of() builds a strategy from any hash and equality function, for keys
+ * whose own hashCode() or equals() is missing, slow or not the one wanted,
+ * such as arrays or case-insensitive Strings. The two functions must agree:
+ * keys that are equal must have the same hash.
+ */
+public interface HashStrategy<K> {
+
+    /** Returns the hash of KEY. */
+    int hash(K key);
+
+    /** Returns whether A and B are the same key. */
+    boolean equals(K a, K b);
+
+    /**
+     * Returns whether equals() agrees with the keys' own equals(). If so, a
+     * MyHashMap may order keys with equal hashes by their compareTo().
+     */
+    default boolean hasNaturalEquality() {
+        return false;
+    }
+
+    /** Returns the strategy of hashCode() and equals(). */
+    @SuppressWarnings("unchecked")
+    static <K> HashStrategy<K> standard() {
+        return (HashStrategy<K>) Standard.INSTANCE;
+    }
+
+    /** Returns a strategy with its own random key, drawn from ThreadLocalRandom. */
+    static <K> HashStrategy<K> seeded() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Seeded<>(random.nextLong(), random.nextLong());
+    }
+
+    /** Returns a strategy keyed by K0 and K1, so that tests can reproduce its hashes. */
+    static <K> HashStrategy<K> seeded(long k0, long k1) {
+        return new Seeded<>(k0, k1);
+    }
+
+    /** Returns a strategy that hashes keys with HASH and compares them with EQUALS. */
+    static <K> HashStrategy<K> of(ToIntFunction<? super K> hash, BiPredicate<? super K, ? super K> equals) {
+        Objects.requireNonNull(hash);
+        Objects.requireNonNull(equals);
+        return new HashStrategy<>() {
+            @Override
+            public int hash(K key) {
+                return hash.applyAsInt(key);
+            }
+
+            @Override
+            public boolean equals(K a, K b) {
+                return equals.test(a, b);
+            }
+        };
+    }
+
+    /** hashCode() and equals(). */
+    final class Standard implements HashStrategy<Object> {
+        private static final Standard INSTANCE = new Standard();
+
+        private Standard() {
+        }
+
+        @Override
+        public int hash(Object key) {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return a.equals(b);
+        }
+
+        @Override
+        public boolean hasNaturalEquality() {
+            return true;
+        }
+    }
+
+    /** SipHash-1-3 of a String's characters, or of another key's hashCode(). */
+    final class Seeded<K> implements HashStrategy<K> {
+        private final long k0;
+        private final long k1;
+
+        private Seeded(long k0, long k1) {
+            this.k0 = k0;
+            this.k1 = k1;
+        }
+
+        @Override
+        public int hash(K key) {
+            long h = key instanceof String s ? sipHash(s) : sipHash(key.hashCode());
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public boolean equals(K a, K b) {
+            return a.equals(b);
+        }
+
+        @Override
+        public boolean hasNaturalEquality() {
+            return true;
+        }
+
+        /** Hashes the characters of S, four to a 64-bit message word. */
+        private long sipHash(String s) {
+            long v0 = k0 ^ 0x736F6D6570736575L;
+            long v1 = k1 ^ 0x646F72616E646F6DL;
+            long v2 = k0 ^ 0x6C7967656E657261L;
+            long v3 = k1 ^ 0x7465646279746573L;
+            int len = s.length();
+            int ix = 0;
+            for (; ix + 4 <= len; ix += 4) {
+                long m = s.charAt(ix) | (long) s.charAt(ix + 1) << 16
+                        | (long) s.charAt(ix + 2) << 32 | (long) s.charAt(ix + 3) << 48;
+                v3 ^= m;
+                // one SipRound per word, inlined: the "1" of SipHash-1-3
+                v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+                v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+                v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+                v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+                v0 ^= m;
+            }
+            // the last word holds the leftover characters and the length
+            long m = (long) len << 48;
+            for (int shift = 0; ix < len; ix++, shift += 16) {
+                m |= (long) s.charAt(ix) << shift;
+            }
+            return finish(v0, v1, v2, v3, m);
+        }
+
+        /** Hashes H as a single message word. */
+        private long sipHash(int h) {
+            return finish(k0 ^ 0x736F6D6570736575L, k1 ^ 0x646F72616E646F6DL,
+                    k0 ^ 0x6C7967656E657261L, k1 ^ 0x7465646279746573L, h & 0xFFFFFFFFL);
+        }
+
+        /** Absorbs the last message word M, then runs the three finalization rounds. */
+        private static long finish(long v0, long v1, long v2, long v3, long m) {
+            v3 ^= m;
+            for (int round = 0; round < 4; round++) {
+                if (round == 1) {
+                    v0 ^= m;
+                    v2 ^= 0xFF;
+                }
+                v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+                v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+                v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+                v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            }
+            return v0 ^ v1 ^ v2 ^ v3;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package hashmap;
+
+/**
+ * A map from primitive int keys to primitive double values. No operation boxes
+ * a key or a value, and updating a present key never allocates.
+ * <p>
+ * Uses linear probing over a power-of-two table of parallel key and value
+ * arrays, with backward-shift deletion like OpenAddressingMap. Key 0 marks
+ * an empty slot, so a mapping for key 0 is stored outside the table.
+ * <p>
+ * Since a double cannot be null, get() and remove() return noEntryValue() for
+ * a missing key; use containsKey() or getOrDefault() when that value is
+ * ambiguous. Does not resize down upon remove().
+ */
+public class IntDoubleMap {
+
+    /* Instance Variables */
+    private int[] keys;
+    private double[] values;
+    private int mask;
+    private int itemNum;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+    private double zeroValue;
+    private final double loadFactor;
+    private final int initialCapacity;
+    private final double noEntryValue;
+
+    /**
+     * Constructors
+     */
+    public IntDoubleMap() {
+        this(16, 0.5, 0.0);
+    }
+
+    public IntDoubleMap(int initialCapacity) {
+        this(initialCapacity, 0.5, 0.0);
+    }
+
+    /**
+     * IntDoubleMap constructor that creates backing arrays of at least
+     * initialCapacity slots, rounded up to a power of two.
+     *
+     * @param initialCapacity initial size of backing arrays
+     * @param loadFactor      maximum load factor, must be in (0, 1)
+     * @param noEntryValue    value returned by get() and remove() for missing keys
+     */
+    public IntDoubleMap(int initialCapacity, double loadFactor, double noEntryValue) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        this.initialCapacity = OpenAddressingMap.tableSizeFor(initialCapacity);
+        this.noEntryValue = noEntryValue;
+        createTable(this.initialCapacity);
+    }
+
+    /** Associates VALUE with KEY, replacing any previous value. */
+    public void put(int key, double value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                itemNum++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int ix = findSlot(key);
+        if (keys[ix] == key) {
+            values[ix] = value;
+        } else {
+            insertAt(ix, key, value);
+        }
+    }
+
+    /** Returns the value for KEY, or noEntryValue() if KEY is not present. */
+    public double get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    /** Returns the value for KEY, or DEFAULTVALUE if KEY is not present. */
+    public double getOrDefault(int key, double defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int ix = findSlot(key);
+        return keys[ix] == key ? values[ix] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[findSlot(key)] == key;
+    }
+
+    /**
+     * Adds DELTA to the value for KEY, treating a missing key as having
+     * value 0.0, and returns the new value. Probes the table only once.
+     */
+    public double addTo(int key, double delta) {
+        return adjustOrPut(key, delta, delta);
+    }
+
+    /**
+     * Adds DELTA to the value for KEY if KEY is present, otherwise
+     * associates KEY with PUTVALUE. Returns the resulting value.
+     */
+    public double adjustOrPut(int key, double delta, double putValue) {
+        if (key == 0) {
+            if (hasZeroKey) {
+                zeroValue += delta;
+            } else {
+                put(0, putValue);
+            }
+            return zeroValue;
+        }
+        int ix = findSlot(key);
+        if (keys[ix] == key) {
+            values[ix] += delta;
+            return values[ix];
+        }
+        insertAt(ix, key, putValue);
+        return putValue;
+    }
+
+    /** Removes KEY and returns its value, or noEntryValue() if KEY was not present. */
+    public double remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            itemNum--;
+            return zeroValue;
+        }
+        int ix = findSlot(key);
+        if (keys[ix] != key) {
+            return noEntryValue;
+        }
+        double old = values[ix];
+        deleteSlot(ix);
+        itemNum--;
+        return old;
+    }
+
+    public int size() {
+        return itemNum;
+    }
+
+    public void clear() {
+        createTable(initialCapacity);
+        hasZeroKey = false;
+        itemNum = 0;
+    }
+
+    /** Returns the value that get() and remove() use to mean "no such key". */
+    public double noEntryValue() {
+        return noEntryValue;
+    }
+
+    /** Returns a new array holding every key in this map, in no particular order. */
+    public int[] keys() {
+        int[] ret = new int[itemNum];
+        int n = 0;
+        if (hasZeroKey) {
+            ret[n++] = 0;
+        }
+        for (int k : keys) {
+            if (k != 0) {
+                ret[n++] = k;
+            }
+        }
+        return ret;
+    }
+
+    /** Calls ACTION on every key and its value, without boxing either. */
+    public void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int ix = 0; ix < keys.length; ix++) {
+            if (keys[ix] != 0) {
+                action.accept(keys[ix], values[ix]);
+            }
+        }
+    }
+
+    /** Receives the entries of an IntDoubleMap in forEach(). */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, double value);
+    }
+
+    /**
+     * Returns the slot holding KEY, or the empty slot where KEY would be
+     * inserted if it is not present. KEY must not be 0.
+     */
+    private int findSlot(int key) {
+        int ix = OpenAddressingMap.spread(key) & mask;
+        while (keys[ix] != 0 && keys[ix] != key) {
+            ix = (ix + 1) & mask;
+        }
+        return ix;
+    }
+
+    private void insertAt(int ix, int key, double value) {
+        keys[ix] = key;
+        values[ix] = value;
+        itemNum++;
+        if (itemNum > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** Backward-shift deletion, see OpenAddressingMap. */
+    private void deleteSlot(int ix) {
+        int hole = ix;
+        int next = (hole + 1) & mask;
+        while (keys[next] != 0) {
+            int home = OpenAddressingMap.spread(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        createTable(newCapacity);
+        for (int ix = 0; ix < oldKeys.length; ix++) {
+            if (oldKeys[ix] == 0) {
+                continue;
+            }
+            int newIx = findSlot(oldKeys[ix]);
+            keys[newIx] = oldKeys[ix];
+            values[newIx] = oldValues[ix];
+        }
+    }
+
+    private void createTable(int tableSize) {
+        keys = new int[tableSize];
+        values = new double[tableSize];
+        mask = tableSize - 1;
+        resizeThreshold = Math.min((int) (tableSize * loadFactor), tableSize - 1);
+    }
+}
@@ -0,0 +1,260 @@
+package hashmap;
+
+/**
+ * A map from primitive int keys to primitive int values. No operation boxes
+ * a key or a value, and updating a present key never allocates.
+ * <p>
+ * Uses linear probing over a power-of-two table of parallel key and value
+ * arrays, with backward-shift deletion like OpenAddressingMap. Key 0 marks
+ * an empty slot, so a mapping for key 0 is stored outside the table.
+ * <p>
+ * Since an int cannot be null, get() and remove() return noEntryValue() for
+ * a missing key; use containsKey() or getOrDefault() when that value is
+ * ambiguous. Does not resize down upon remove().
+ */
+public class IntIntMap {
+
+    /* Instance Variables */
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int itemNum;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private final double loadFactor;
+    private final int initialCapacity;
+    private final int noEntryValue;
+
+    /**
+     * Constructors
+     */
+    public IntIntMap() {
+        this(16, 0.5, 0);
+    }
+
+    public IntIntMap(int initialCapacity) {
+        this(initialCapacity, 0.5, 0);
+    }
+
+    /**
+     * IntIntMap constructor that creates backing arrays of at least
+     * initialCapacity slots, rounded up to a power of two.
+     *
+     * @param initialCapacity initial size of backing arrays
+     * @param loadFactor      maximum load factor, must be in (0, 1)
+     * @param noEntryValue    value returned by get() and remove() for missing keys
+     */
+    public IntIntMap(int initialCapacity, double loadFactor, int noEntryValue) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        this.initialCapacity = OpenAddressingMap.tableSizeFor(initialCapacity);
+        this.noEntryValue = noEntryValue;
+        createTable(this.initialCapacity);
+    }
+
+    /** Associates VALUE with KEY, replacing any previous value. */
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                itemNum++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int ix = findSlot(key);
+        if (keys[ix] == key) {
+            values[ix] = value;
+        } else {
+            insertAt(ix, key, value);
+        }
+    }
+
+    /** Returns the value for KEY, or noEntryValue() if KEY is not present. */
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    /** Returns the value for KEY, or DEFAULTVALUE if KEY is not present. */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int ix = findSlot(key);
+        return keys[ix] == key ? values[ix] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[findSlot(key)] == key;
+    }
+
+    /**
+     * Adds DELTA to the value for KEY, treating a missing key as having
+     * value 0, and returns the new value. Probes the table only once.
+     */
+    public int addTo(int key, int delta) {
+        return adjustOrPut(key, delta, delta);
+    }
+
+    /** Adds one to the value for KEY and returns the new value. */
+    public int increment(int key) {
+        return adjustOrPut(key, 1, 1);
+    }
+
+    /**
+     * Adds DELTA to the value for KEY if KEY is present, otherwise
+     * associates KEY with PUTVALUE. Returns the resulting value.
+     */
+    public int adjustOrPut(int key, int delta, int putValue) {
+        if (key == 0) {
+            if (hasZeroKey) {
+                zeroValue += delta;
+            } else {
+                put(0, putValue);
+            }
+            return zeroValue;
+        }
+        int ix = findSlot(key);
+        if (keys[ix] == key) {
+            values[ix] += delta;
+            return values[ix];
+        }
+        insertAt(ix, key, putValue);
+        return putValue;
+    }
+
+    /** Removes KEY and returns its value, or noEntryValue() if KEY was not present. */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            itemNum--;
+            return zeroValue;
+        }
+        int ix = findSlot(key);
+        if (keys[ix] != key) {
+            return noEntryValue;
+        }
+        int old = values[ix];
+        deleteSlot(ix);
+        itemNum--;
+        return old;
+    }
+
+    public int size() {
+        return itemNum;
+    }
+
+    public void clear() {
+        createTable(initialCapacity);
+        hasZeroKey = false;
+        itemNum = 0;
+    }
+
+    /** Returns the value that get() and remove() use to mean "no such key". */
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    /** Returns a new array holding every key in this map, in no particular order. */
+    public int[] keys() {
+        int[] ret = new int[itemNum];
+        int n = 0;
+        if (hasZeroKey) {
+            ret[n++] = 0;
+        }
+        for (int k : keys) {
+            if (k != 0) {
+                ret[n++] = k;
+            }
+        }
+        return ret;
+    }
+
+    /** Calls ACTION on every key and its value, without boxing either. */
+    public void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int ix = 0; ix < keys.length; ix++) {
+            if (keys[ix] != 0) {
+                action.accept(keys[ix], values[ix]);
+            }
+        }
+    }
+
+    /** Receives the entries of an IntIntMap in forEach(). */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    /**
+     * Returns the slot holding KEY, or the empty slot where KEY would be
+     * inserted if it is not present. KEY must not be 0.
+     */
+    private int findSlot(int key) {
+        int ix = OpenAddressingMap.spread(key) & mask;
+        while (keys[ix] != 0 && keys[ix] != key) {
+            ix = (ix + 1) & mask;
+        }
+        return ix;
+    }
+
+    private void insertAt(int ix, int key, int value) {
+        keys[ix] = key;
+        values[ix] = value;
+        itemNum++;
+        if (itemNum > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** Backward-shift deletion, see OpenAddressingMap. */
+    private void deleteSlot(int ix) {
+        int hole = ix;
+        int next = (hole + 1) & mask;
+        while (keys[next] != 0) {
+            int home = OpenAddressingMap.spread(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        createTable(newCapacity);
+        for (int ix = 0; ix < oldKeys.length; ix++) {
+            if (oldKeys[ix] == 0) {
+                continue;
+            }
+            int newIx = findSlot(oldKeys[ix]);
+            keys[newIx] = oldKeys[ix];
+            values[newIx] = oldValues[ix];
+        }
+    }
+
+    private void createTable(int tableSize) {
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        resizeThreshold = Math.min((int) (tableSize * loadFactor), tableSize - 1);
+    }
+}
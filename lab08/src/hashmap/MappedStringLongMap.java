@@ -0,0 +1,524 @@
+package hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A Map61B from Strings to longs whose table and keys live in memory-mapped
+ * files instead of on the heap. The map survives restarts: open() on an
+ * existing directory maps its files and is ready at once, with nothing to
+ * rebuild, and the heap only ever holds a few buffers.
+ * <p>
+ * A map is a directory of two files. "keys" is an append-only log of key
+ * records, each a 4-byte length followed by the key's UTF-8 bytes, padded to
+ * a multiple of 4. "table" is a header followed by a linear probing table,
+ * laid out like OpenAddressingMap's, of 32-byte slots holding the offset of
+ * the key's record (0 for an empty slot), the value, the key's spread hash
+ * and its length in bytes. Probes compare the hash and length before reading
+ * any key bytes, and a resize copies slots without touching the keys. A
+ * resize writes a new table file and renames it over the old one, so a crash
+ * never leaves a half-built table behind.
+ * <p>
+ * Writes go straight to the mapped pages, which the OS writes back even if
+ * the process exits without calling close(). force() and close() also wait
+ * for them to reach the disk. Removing a key frees its slot but not its key
+ * record, so the keys file never shrinks.
+ * <p>
+ * Lookups and updates of present keys don't allocate; getLong() and putLong()
+ * avoid boxing the value as well. Only one MappedStringLongMap, in any
+ * process, can have a directory open at a time. Not thread-safe. Assumes
+ * null keys and values will never be inserted.
+ */
+public class MappedStringLongMap implements Map61B<String, Long>, Closeable {
+
+    private static final long TABLE_MAGIC = 0x4D363142544142L; // "M61BTAB"
+    private static final long KEYS_MAGIC = 0x4D3631424B4559L;  // "M61BKEY"
+    /** Bytes before the first slot or key record. Also keeps offset 0 free to mean "empty". */
+    private static final int HEADER = 64;
+    /* Header fields. Both files start with their magic number. */
+    private static final int CAPACITY_AT = 8;
+    private static final int SIZE_AT = 16;
+    private static final int END_AT = 8;
+
+    /* Slot fields */
+    private static final int SLOT = 32;
+    private static final int REF_AT = 0;
+    private static final int VALUE_AT = 8;
+    private static final int HASH_AT = 16;
+    private static final int LENGTH_AT = 20;
+
+    private static final long INITIAL_CAPACITY = 16;
+    private static final double LOAD_FACTOR = 0.5;
+
+    /* Instance Variables */
+    private final Path tablePath;
+    private final Path keysPath;
+    private final FileChannel keysChannel;
+    private final FileLock lock;
+    private MappedRegion table;
+    private MappedRegion keys;
+    private long mask;
+    private long itemNum;
+    private long keysEnd;
+    /** The UTF-8 bytes of the key of the current operation, reused across calls. */
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Opens the map stored in DIRECTORY, creating an empty one if the
+     * directory doesn't hold one yet.
+     *
+     * @throws IOException if the files can't be opened or mapped, are not a
+     *                     MappedStringLongMap, or are already open
+     */
+    public static MappedStringLongMap open(Path directory) throws IOException {
+        return new MappedStringLongMap(directory);
+    }
+
+    private MappedStringLongMap(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        tablePath = directory.resolve("table");
+        keysPath = directory.resolve("keys");
+        keysChannel = FileChannel.open(keysPath, CREATE, READ, WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = keysChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // this JVM already holds the lock
+            fileLock = null;
+        }
+        lock = fileLock;
+        if (lock == null) {
+            keysChannel.close();
+            throw new IOException(directory + " is already open");
+        }
+        try {
+            if (Files.exists(tablePath)) {
+                load();
+            } else {
+                // no table means nothing was ever committed, even if there are keys
+                keys = new MappedRegion(keysChannel, Math.max(keysChannel.size(), HEADER + 4096));
+                keys.putLong(0, KEYS_MAGIC);
+                setKeysEnd(HEADER);
+                writeTable(INITIAL_CAPACITY);
+            }
+        } catch (IOException | RuntimeException e) {
+            lock.release();
+            keysChannel.close();
+            throw e;
+        }
+    }
+
+    /** Maps the files of an existing map. */
+    private void load() throws IOException {
+        keys = new MappedRegion(keysChannel, keysChannel.size());
+        try (FileChannel ch = FileChannel.open(tablePath, READ, WRITE)) {
+            table = new MappedRegion(ch, ch.size());
+        }
+        if (keys.size() < HEADER || keys.getLong(0) != KEYS_MAGIC
+                || table.size() < HEADER || table.getLong(0) != TABLE_MAGIC) {
+            throw new IOException(tablePath.getParent() + " does not hold a MappedStringLongMap");
+        }
+        long capacity = table.getLong(CAPACITY_AT);
+        if (table.size() < HEADER + capacity * SLOT) {
+            throw new IOException(tablePath + " is truncated");
+        }
+        mask = capacity - 1;
+        itemNum = table.getLong(SIZE_AT);
+        keysEnd = keys.getLong(END_AT);
+    }
+
+    @Override
+    public void put(String key, Long value) {
+        putLong(key, value);
+    }
+
+    /** Associates VALUE with KEY, without boxing VALUE. */
+    public void putLong(String key, long value) {
+        int length = encode(key);
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        long slot = slotOffset(findSlot(hash, length));
+        if (table.getLong(slot + REF_AT) != 0) {
+            table.putLong(slot + VALUE_AT, value);
+            return;
+        }
+        // the key record is written before the slot that points at it
+        long ref = appendKey(length);
+        table.putLong(slot + VALUE_AT, value);
+        table.putInt(slot + HASH_AT, hash);
+        table.putInt(slot + LENGTH_AT, length);
+        table.putLong(slot + REF_AT, ref);
+        itemNum++;
+        table.putLong(SIZE_AT, itemNum);
+        if (itemNum > LOAD_FACTOR * (mask + 1)) {
+            writeTable(2 * (mask + 1));
+        }
+    }
+
+    @Override
+    public Long get(String key) {
+        long slot = slotOffset(findSlot(key));
+        return table.getLong(slot + REF_AT) != 0 ? table.getLong(slot + VALUE_AT) : null;
+    }
+
+    /** Returns the value for KEY, or DEFAULTVALUE if KEY is not present, without boxing. */
+    public long getLong(String key, long defaultValue) {
+        long slot = slotOffset(findSlot(key));
+        return table.getLong(slot + REF_AT) != 0 ? table.getLong(slot + VALUE_AT) : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return table.getLong(slotOffset(findSlot(key)) + REF_AT) != 0;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(itemNum, Integer.MAX_VALUE);
+    }
+
+    /** Removes every key. The files keep their current size. */
+    @Override
+    public void clear() {
+        itemNum = 0;
+        writeTable(INITIAL_CAPACITY);
+        // only once no slot points at the old key records can they be overwritten
+        setKeysEnd(HEADER);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        Set<String> set = new HashSet<>();
+        for (String key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    public Long remove(String key) {
+        long ix = findSlot(key);
+        long slot = slotOffset(ix);
+        if (table.getLong(slot + REF_AT) == 0) {
+            return null;
+        }
+        long old = table.getLong(slot + VALUE_AT);
+        deleteSlot(ix);
+        itemNum--;
+        table.putLong(SIZE_AT, itemNum);
+        return old;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new KeyIterator();
+    }
+
+    /** Waits until every change so far has been written to disk. */
+    public void force() {
+        table.force();
+        keys.force();
+    }
+
+    /**
+     * Forces every change to disk and releases the directory. The map must
+     * not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        lock.release();
+        keysChannel.close();
+    }
+
+    /**
+     * Encodes KEY as UTF-8 into scratch and returns the number of bytes.
+     * Unpaired surrogates become '?', as in String.getBytes().
+     */
+    private int encode(String key) {
+        int n = key.length();
+        if (scratch.length < 3 * n) {
+            scratch = new byte[Math.max(3 * n, 2 * scratch.length)];
+        }
+        byte[] b = scratch;
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                b[length++] = (byte) c;
+            } else if (c < 0x800) {
+                b[length++] = (byte) (0xC0 | c >> 6);
+                b[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, key.charAt(++i));
+                    b[length++] = (byte) (0xF0 | cp >> 18);
+                    b[length++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    b[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    b[length++] = (byte) (0x80 | cp & 0x3F);
+                } else {
+                    b[length++] = '?';
+                }
+            } else {
+                b[length++] = (byte) (0xE0 | c >> 12);
+                b[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                b[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return length;
+    }
+
+    private long findSlot(String key) {
+        return findSlot(OpenAddressingMap.spread(key.hashCode()), encode(key));
+    }
+
+    /**
+     * Returns the index of the slot holding the key in scratch, or of the
+     * empty slot where it would be inserted if it is not present.
+     */
+    private long findSlot(int hash, int length) {
+        long ix = hash & mask;
+        while (true) {
+            long slot = slotOffset(ix);
+            long ref = table.getLong(slot + REF_AT);
+            if (ref == 0) {
+                return ix;
+            }
+            if (table.getInt(slot + HASH_AT) == hash && table.getInt(slot + LENGTH_AT) == length
+                    && keys.equals(ref + 4, scratch, length)) {
+                return ix;
+            }
+            ix = (ix + 1) & mask;
+        }
+    }
+
+    private static long slotOffset(long ix) {
+        return HEADER + ix * SLOT;
+    }
+
+    /** Appends the key in scratch to the keys file and returns the offset of its record. */
+    private long appendKey(int length) {
+        long ref = keysEnd;
+        long end = ref + 4 + ((length + 3) & ~3);
+        if (end > keys.size()) {
+            try {
+                keys.grow(keysChannel, Math.max(end, 2 * keys.size()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        keys.putInt(ref, length);
+        keys.put(ref + 4, scratch, length);
+        setKeysEnd(end);
+        return ref;
+    }
+
+    private void setKeysEnd(long end) {
+        keysEnd = end;
+        keys.putLong(END_AT, end);
+    }
+
+    /** Backward-shift deletion, see OpenAddressingMap. */
+    private void deleteSlot(long ix) {
+        long hole = ix;
+        long next = (hole + 1) & mask;
+        while (table.getLong(slotOffset(next) + REF_AT) != 0) {
+            long home = table.getInt(slotOffset(next) + HASH_AT) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                copySlot(table, slotOffset(next), table, slotOffset(hole));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table.putLong(slotOffset(hole) + REF_AT, 0);
+    }
+
+    private static void copySlot(MappedRegion from, long fromSlot, MappedRegion to, long toSlot) {
+        for (int i = 0; i < SLOT; i += 8) {
+            to.putLong(toSlot + i, from.getLong(fromSlot + i));
+        }
+    }
+
+    /**
+     * Writes the current slots, if any, into a new table file of CAPACITY
+     * slots, forces it to disk and then renames it over the old table.
+     */
+    private void writeTable(long capacity) {
+        Path tmp = tablePath.resolveSibling("table.tmp");
+        try (FileChannel ch = FileChannel.open(tmp, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            MappedRegion newTable = new MappedRegion(ch, HEADER + capacity * SLOT);
+            long newMask = capacity - 1;
+            if (table != null && itemNum > 0) {
+                for (long ix = 0; ix <= mask; ix++) {
+                    long slot = slotOffset(ix);
+                    if (table.getLong(slot + REF_AT) == 0) {
+                        continue;
+                    }
+                    long newIx = table.getInt(slot + HASH_AT) & newMask;
+                    while (newTable.getLong(slotOffset(newIx) + REF_AT) != 0) {
+                        newIx = (newIx + 1) & newMask;
+                    }
+                    copySlot(table, slot, newTable, slotOffset(newIx));
+                }
+            }
+            newTable.putLong(0, TABLE_MAGIC);
+            newTable.putLong(CAPACITY_AT, capacity);
+            newTable.putLong(SIZE_AT, itemNum);
+            // the keys the new table points at must be on disk before it is
+            keys.force();
+            newTable.force();
+            Files.move(tmp, tablePath, ATOMIC_MOVE, REPLACE_EXISTING);
+            table = newTable;
+            mask = newMask;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private class KeyIterator implements Iterator<String> {
+        private long ix = advance(0);
+
+        private long advance(long from) {
+            while (from <= mask && table.getLong(slotOffset(from) + REF_AT) == 0) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ix <= mask;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long slot = slotOffset(ix);
+            byte[] b = new byte[table.getInt(slot + LENGTH_AT)];
+            keys.get(table.getLong(slot + REF_AT) + 4, b);
+            ix = advance(ix + 1);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A file mapped as consecutive buffers of up to CHUNK bytes each, since
+     * one MappedByteBuffer can't be larger than 2 GB. Values are aligned to
+     * their size and CHUNK is a power of two, so a long or an int never
+     * straddles two buffers; byte arrays can.
+     */
+    private static final class MappedRegion {
+        private static final int CHUNK_BITS = 30;
+        private static final long CHUNK = 1L << CHUNK_BITS;
+
+        private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+        private long size;
+
+        MappedRegion(FileChannel channel, long size) throws IOException {
+            grow(channel, size);
+        }
+
+        long size() {
+            return size;
+        }
+
+        /** Extends the file behind CHANNEL to NEWSIZE bytes and maps the new part. */
+        void grow(FileChannel channel, long newSize) throws IOException {
+            int n = (int) ((newSize + CHUNK - 1) >>> CHUNK_BITS);
+            MappedByteBuffer[] newChunks = Arrays.copyOf(chunks, n);
+            // the last chunk may have been partial, so it is mapped again at its new size
+            for (int i = Math.max(0, chunks.length - 1); i < n; i++) {
+                long start = (long) i << CHUNK_BITS;
+                newChunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(CHUNK, newSize - start));
+            }
+            chunks = newChunks;
+            size = newSize;
+        }
+
+        private MappedByteBuffer chunk(long pos) {
+            return chunks[(int) (pos >>> CHUNK_BITS)];
+        }
+
+        private static int offset(long pos) {
+            return (int) (pos & (CHUNK - 1));
+        }
+
+        long getLong(long pos) {
+            return chunk(pos).getLong(offset(pos));
+        }
+
+        void putLong(long pos, long v) {
+            chunk(pos).putLong(offset(pos), v);
+        }
+
+        int getInt(long pos) {
+            return chunk(pos).getInt(offset(pos));
+        }
+
+        void putInt(long pos, int v) {
+            chunk(pos).putInt(offset(pos), v);
+        }
+
+        /** Copies the first LENGTH bytes of SRC to POS. */
+        void put(long pos, byte[] src, int length) {
+            for (int i = 0; i < length; ) {
+                MappedByteBuffer c = chunk(pos + i);
+                int off = offset(pos + i);
+                int n = (int) Math.min(length - i, CHUNK - off);
+                c.put(off, src, i, n);
+                i += n;
+            }
+        }
+
+        /** Fills DST with the bytes starting at POS. */
+        void get(long pos, byte[] dst) {
+            for (int i = 0; i < dst.length; ) {
+                MappedByteBuffer c = chunk(pos + i);
+                int off = offset(pos + i);
+                int n = (int) Math.min(dst.length - i, CHUNK - off);
+                c.get(off, dst, i, n);
+                i += n;
+            }
+        }
+
+        /** Returns whether the LENGTH bytes at POS equal the first LENGTH bytes of B. */
+        boolean equals(long pos, byte[] b, int length) {
+            int off = offset(pos);
+            if (off + length <= CHUNK) {
+                MappedByteBuffer c = chunk(pos);
+                for (int i = 0; i < length; i++) {
+                    if (c.get(off + i) != b[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chunk(pos + i).get(offset(pos + i)) != b[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void force() {
+            for (MappedByteBuffer c : chunks) {
+                c.force();
+            }
+        }
+    }
+}
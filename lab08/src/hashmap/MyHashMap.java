@@ -1,12 +1,53 @@
 package hashmap;
 
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collector;
 
 /**
  * A hash table-backed Map implementation. Provides amortized constant time
  * access to elements via get(), remove(), and put() in the best case.
  * <p>
- * Assumes null keys will never be inserted, and does not resize down upon remove().
+ * A bucket that grows past TREEIFY_THRESHOLD nodes, because of a poor or
+ * adversarial hashCode(), is converted into a TreeBucket, a red-black tree
+ * ordered by hash code and then by compareTo() for Comparable keys. Lookups in
+ * such a bucket take O(log n) time instead of O(n). The tree is converted back
+ * into an ordinary bucket once it shrinks below UNTREEIFY_THRESHOLD.
+ * <p>
+ * Each key's hashCode() is computed once, spread so that its high bits also
+ * affect the bucket index, and cached in its Node. Resizes reuse the cached
+ * hash, and lookups only call equals() on nodes whose hash matches. When the
+ * capacity is a power of two, as it is by default, bucket indices are taken
+ * with a bit mask instead of a division.
+ * <p>
+ * Assumes null keys will never be inserted. By default the table never
+ * shrinks; setShrinkFactor() makes remove() halve it once the map empties
+ * out, and compact() shrinks it on demand.
+ * <p>
+ * To load many entries at once, size the table up front with
+ * withExpectedSize() or ensureCapacity(), or use putAll(), fromEntries() or
+ * toMyHashMap(), which do so themselves. Then no put() has to resize.
+ * <p>
+ * getOrDefault(), putIfAbsent(), computeIfAbsent(), merge() and
+ * adjustOrPut() find the key's node once and update it in place, so a
+ * read-modify-write costs a single hash and bucket search.
+ * <p>
+ * A map constructed with a HashStrategy hashes and compares keys with it
+ * instead of hashCode() and equals(). Use HashStrategy.seeded() for keys
+ * that untrusted clients choose, so that they can't pick keys that all land
+ * in one bucket, or HashStrategy.of() for keys whose own hashCode() and
+ * equals() don't fit.
+ * <p>
+ * enableStats() starts collecting a HashMapStats: probe lengths, resize
+ * counts and times, and load factors. Until it is called, the only cost is
+ * a null check in each operation.
+ * <p>
+ * iterator(), keySet(), entrySet() and forEach() walk the table in place
+ * without copying it. They are fail-fast: structurally modifying the map
+ * during a scan, other than through the entry being visited, makes the
+ * scan throw a ConcurrentModificationException.
  *
  * @author YOUR NAME HERE
  */
@@ -14,44 +55,144 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
 
     @Override
     public void put(K key, V value) {
-        if (needResize()) {
-            resize();
-        }
-        int hashVal = key.hashCode();
-        int bucketIn = Math.floorMod(key.hashCode(), bucketNum);
+        putVal(key, value, hashOf(key), true);
+    }
 
-        for (Node node : buckets[bucketIn]) {
-            if (node.key.equals(key)) {
+    /**
+     * Associates VALUE with KEY, whose hash is HASHVAL. If CHECKDUPLICATE is
+     * false, the caller guarantees that KEY is not in the map yet, and the
+     * bucket isn't searched for it.
+     */
+    private void putVal(K key, V value, int hashVal, boolean checkDuplicate) {
+        if (checkDuplicate) {
+            Node node = findForUpdate(key, hashVal);
+            if (node != null) {
                 node.value = value;
+                afterNodeAccess(node);
                 return;
             }
+        } else {
+            prepareForUpdate();
         }
+        insertNode(key, value, hashVal);
+    }
 
-        buckets[bucketIn].add(createNode(key, value));
-        itemNum++;
+    @Override
+    public V get(K key) {
+        Node node = getNode(key);
+        return node == null ? null : node.value;
+    }
 
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        Node node = getNode(key);
+        return node == null ? defaultValue : node.value;
     }
 
     @Override
-    public V get(K key) {
-        int bucketIn = Math.floorMod(key.hashCode(), bucketNum);
-        for (Node node : buckets[bucketIn]) {
-            if (node.key.equals(key)) {
-                return node.value;
-            }
+    public V putIfAbsent(K key, V value) {
+        int hashVal = hashOf(key);
+        Node node = findForUpdate(key, hashVal);
+        if (node == null) {
+            insertNode(key, value, hashVal);
+            return null;
         }
-        return null;
+        V old = node.value;
+        if (old == null) {
+            node.value = value;
+        }
+        afterNodeAccess(node);
+        return old;
+    }
+
+    /**
+     * Returns the value for KEY. If KEY is absent, first computes its value
+     * with MAPPINGFUNCTION and puts it, unless it is null. Looks KEY up only
+     * once. Throws ConcurrentModificationException if MAPPINGFUNCTION
+     * modifies this map.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        int hashVal = hashOf(key);
+        Node node = findForUpdate(key, hashVal);
+        if (node != null && node.value != null) {
+            afterNodeAccess(node);
+            return node.value;
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        checkModCount(expectedModCount);
+        if (value == null) {
+            return null;
+        }
+        if (node == null) {
+            insertNode(key, value, hashVal);
+        } else {
+            node.value = value;
+            afterNodeAccess(node);
+        }
+        return value;
+    }
+
+    /**
+     * Associates VALUE with KEY if KEY is absent, otherwise replaces its
+     * value with REMAPPINGFUNCTION applied to the old value and VALUE, or
+     * removes KEY if that returns null. Looks KEY up only once, unless it is
+     * removed. Throws ConcurrentModificationException if REMAPPINGFUNCTION
+     * modifies this map.
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        int hashVal = hashOf(key);
+        Node node = findForUpdate(key, hashVal);
+        if (node == null) {
+            insertNode(key, value, hashVal);
+            return value;
+        }
+        V newValue = value;
+        if (node.value != null) {
+            int expectedModCount = modCount;
+            newValue = remappingFunction.apply(node.value, value);
+            checkModCount(expectedModCount);
+        }
+        if (newValue == null) {
+            remove(key);
+            return null;
+        }
+        node.value = newValue;
+        afterNodeAccess(node);
+        return newValue;
+    }
+
+    /**
+     * Replaces the value of KEY with ADJUST applied to it if KEY is present,
+     * otherwise associates KEY with PUTVALUE, and returns the resulting
+     * value. Looks KEY up only once. Throws ConcurrentModificationException
+     * if ADJUST modifies this map.
+     */
+    @Override
+    public V adjustOrPut(K key, Function<? super V, ? extends V> adjust, V putValue) {
+        int hashVal = hashOf(key);
+        Node node = findForUpdate(key, hashVal);
+        if (node == null) {
+            insertNode(key, putValue, hashVal);
+            return putValue;
+        }
+        int expectedModCount = modCount;
+        V value = adjust.apply(node.value);
+        checkModCount(expectedModCount);
+        node.value = value;
+        afterNodeAccess(node);
+        return value;
     }
 
     @Override
     public boolean containsKey(K key) {
-        int bucketIn = Math.floorMod(key.hashCode(), bucketNum);
-        for (Node node : buckets[bucketIn]) {
-            if (node.key.equals(key)) {
-                return true;
-            }
+        if (oldBuckets != null) {
+            migrateBuckets(MIGRATE_STEP);
         }
-        return false;
+        return (stats == null ? findNode(key) : findNodeCounting(key)) != null;
     }
 
     @Override
@@ -62,50 +203,451 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
     @Override
     public void clear() {
         buckets = createTable(initialCapacity);
+        oldBuckets = null;
         itemNum = 0;
+        modCount++;
         bucketNum = initialCapacity;
     }
 
+    /** Returns a Set view of the keys in this map. The view is backed by the
+     * map and does not copy it. */
     @Override
     public Set<K> keySet() {
-        Set<K> set = new HashSet<>();
-        for (int ix = 0; ix < bucketNum; ix++) {
-            for (Node node : buckets[ix]) {
-                set.add(node.key);
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<K> iterator() {
+                return MyHashMap.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return itemNum;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                return o != null && containsKey((K) o);
+            }
+        };
+    }
+
+    /** Returns a Set view of the mappings in this map. The entries are the
+     * map's own nodes, so nothing is copied, and setValue() writes through. */
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new HashIterator<>() {
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        return nextNode();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return itemNum;
+            }
+        };
+    }
+
+    /**
+     * Calls ACTION on every key and value in this map, reading the table
+     * directly. Throws ConcurrentModificationException if ACTION changes
+     * the structure of the map.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (oldBuckets != null) {
+            migrateBuckets(oldBuckets.length);
+        }
+        int expectedModCount = modCount;
+        Collection<Node>[] table = buckets;
+        for (int ix = 0; ix < table.length; ix++) {
+            if (table[ix] instanceof List<Node> list && table[ix] instanceof RandomAccess) {
+                for (int jx = 0; jx < list.size(); jx++) {
+                    Node node = list.get(jx);
+                    action.accept(node.key, node.value);
+                }
+            } else {
+                for (Node node : table[ix]) {
+                    action.accept(node.key, node.value);
+                }
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
             }
         }
-        return set;
     }
 
     @Override
     public V remove(K key) {
-        int bucketIn = Math.floorMod(key.hashCode(), bucketNum);
-        for (Node node : buckets[bucketIn]) {
-            if (node.key.equals(key)) {
-                Node temp = new Node(node.key, node.value);
-                buckets[bucketIn].remove(temp);
-                return node.value;
+        if (stats != null) {
+            stats.recordOperation();
+        }
+        if (oldBuckets != null) {
+            migrateBuckets(MIGRATE_STEP);
+        }
+        int hashVal = hashOf(key);
+        Collection<Node>[] table = tableFor(hashVal);
+        int bucketIn = indexFor(hashVal, table.length);
+        Collection<Node> bucket = table[bucketIn];
+
+        Node node;
+        if (bucket instanceof MyHashMap<?, ?>.TreeBucket) {
+            TreeBucket tree = (TreeBucket) bucket;
+            node = tree.find(key, hashVal);
+            if (node == null) {
+                return null;
+            }
+            tree.delete(node);
+            if (tree.size() < UNTREEIFY_THRESHOLD) {
+                table[bucketIn] = untreeify(tree);
+            }
+        } else {
+            node = unlink(bucket, key, hashVal);
+            if (node == null) {
+                return null;
             }
         }
-        return null;
+        itemNum--;
+        modCount++;
+        afterNodeRemoval(node);
+        if (needShrink()) {
+            rehash(bucketNum / 2);
+        }
+        return node.value;
+    }
+
+    /**
+     * Copies every mapping in MAP into this map, replacing the values of keys
+     * that are already present. The table is grown once, up front, to fit
+     * both maps, so the copy never triggers a resize. That is an upper bound,
+     * and can leave the table one doubling larger than needed if many keys
+     * are shared.
+     * <p>
+     * Copying from another MyHashMap reuses the hashes cached in its nodes.
+     * If this map is empty, the keys of MAP are known to be distinct, so they
+     * are added without searching their buckets for duplicates.
+     */
+    public void putAll(Map61B<? extends K, ? extends V> map) {
+        if (map == this) {
+            return;
+        }
+        ensureCapacity(itemNum + map.size());
+        if (map instanceof MyHashMap<? extends K, ? extends V> other && other.strategy == strategy) {
+            boolean distinct = itemNum == 0;
+            for (Map.Entry<? extends K, ? extends V> e : other.entrySet()) {
+                int hashVal = ((MyHashMap<?, ?>.Node) e).hash;
+                putVal(e.getKey(), e.getValue(), hashVal, !distinct);
+            }
+        } else {
+            copyFrom(map);
+        }
+    }
+
+    /** Puts every mapping of MAP, through the Map61B interface. */
+    private <K2 extends K, V2 extends V> void copyFrom(Map61B<K2, V2> map) {
+        for (K2 key : map) {
+            put(key, map.get(key));
+        }
+    }
+
+    /**
+     * Puts every entry of ENTRIES into this map, in order, so a later entry
+     * replaces an earlier one with the same key. If ENTRIES is a Collection,
+     * the table is first grown to fit all of them.
+     */
+    public void putAll(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        if (entries instanceof Collection<?> c) {
+            ensureCapacity(itemNum + c.size());
+        }
+        for (Map.Entry<? extends K, ? extends V> e : entries) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Grows the table, in a single rehash, so that it can hold EXPECTEDSIZE
+     * items without exceeding the load factor. Does nothing if it already can.
+     */
+    public void ensureCapacity(int expectedSize) {
+        int newBucketNum = bucketNum;
+        while ((double) expectedSize / newBucketNum > loadFactor && newBucketNum <= MAX_BUCKETS / 2) {
+            newBucketNum *= 2;
+        }
+        if (newBucketNum != bucketNum) {
+            rehash(newBucketNum);
+            modCount++;
+        }
+    }
+
+    /**
+     * Returns an empty map whose table is already large enough for
+     * EXPECTEDSIZE items at the default load factor.
+     */
+    public static <K, V> MyHashMap<K, V> withExpectedSize(int expectedSize) {
+        return new MyHashMap<>(capacityFor(expectedSize, 0.75), 0.75);
+    }
+
+    /**
+     * Returns a map of ENTRIES, sized for all of them before the first put.
+     * A later entry replaces an earlier one with the same key.
+     */
+    public static <K, V> MyHashMap<K, V> fromEntries(
+            Collection<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        MyHashMap<K, V> map = withExpectedSize(entries.size());
+        map.putAll(entries);
+        return map;
+    }
+
+    /**
+     * Returns a Collector that puts each stream element into a MyHashMap,
+     * under the key and value computed by KEYMAPPER and VALUEMAPPER. The map
+     * starts out sized for EXPECTEDSIZE elements, since a stream can't tell
+     * its size in advance. A later element replaces an earlier one with the
+     * same key; for a parallel stream, "later" is in encounter order.
+     * <p>
+     * A parallel stream accumulates into one container per split, so the
+     * keys and values are buffered in lists and the map is only built, and
+     * sized, once by the finisher.
+     */
+    public static <T, K, V> Collector<T, ?, MyHashMap<K, V>> toMyHashMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper, int expectedSize) {
+        return Collector.<T, EntryBuffer<K, V>, MyHashMap<K, V>>of(
+                EntryBuffer::new,
+                (buffer, t) -> buffer.add(keyMapper.apply(t), valueMapper.apply(t)),
+                (left, right) -> {
+                    left.keys.addAll(right.keys);
+                    left.values.addAll(right.values);
+                    return left;
+                },
+                buffer -> {
+                    MyHashMap<K, V> map = withExpectedSize(expectedSize);
+                    for (int i = 0; i < buffer.keys.size(); i++) {
+                        map.put(buffer.keys.get(i), buffer.values.get(i));
+                    }
+                    return map;
+                });
+    }
+
+    /** The keys and values collected by toMyHashMap(), in encounter order. */
+    private static class EntryBuffer<K, V> {
+        final ArrayList<K> keys = new ArrayList<>();
+        final ArrayList<V> values = new ArrayList<>();
+
+        void add(K key, V value) {
+            keys.add(key);
+            values.add(value);
+        }
+    }
+
+    public static <T, K, V> Collector<T, ?, MyHashMap<K, V>> toMyHashMap(
+            Function<? super T, ? extends K> keyMapper,
+            Function<? super T, ? extends V> valueMapper) {
+        return toMyHashMap(keyMapper, valueMapper, 0);
+    }
+
+    /**
+     * Returns the smallest power of two, and at least 16, that holds
+     * EXPECTEDSIZE items without exceeding LOADFACTOR.
+     */
+    static int capacityFor(int expectedSize, double loadFactor) {
+        int capacity = 16;
+        while ((double) expectedSize / capacity > loadFactor && capacity <= MAX_BUCKETS / 2) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Starts collecting statistics about this map's lookups and resizes.
+     * Does nothing if they are already being collected.
+     */
+    public void enableStats() {
+        if (stats == null) {
+            stats = new HashMapStats();
+            stats.recordLoad(itemNum, bucketNum);
+        }
+    }
+
+    /**
+     * Returns the statistics collected since enableStats(), with the
+     * bucket-length histogram computed from the current table. Returns
+     * null if enableStats() has not been called.
+     */
+    public HashMapStats stats() {
+        if (stats == null) {
+            return null;
+        }
+        int[] lengths = new int[1];
+        for (Collection<Node>[] table : Arrays.asList(buckets, oldBuckets)) {
+            if (table == null) {
+                continue;
+            }
+            // during an incremental resize, migrated buckets are null in the
+            // old table and buckets not yet created are null in the new one
+            for (Collection<Node> bucket : table) {
+                if (bucket == null) {
+                    continue;
+                }
+                int len = bucket.size();
+                if (len >= lengths.length) {
+                    lengths = Arrays.copyOf(lengths, Math.max(len + 1, 2 * lengths.length));
+                }
+                lengths[len]++;
+            }
+        }
+        int max = lengths.length - 1;
+        while (max > 0 && lengths[max] == 0) {
+            max--;
+        }
+        stats.setBucketLengths(Arrays.copyOf(lengths, max + 1));
+        return stats;
+    }
+
+    /**
+     * Sets the low-water mark for shrinking. Once remove() leaves fewer than
+     * shrinkFactor * (# buckets) items, the table is halved, but never below
+     * its initial capacity. 0, the default, disables shrinking.
+     * <p>
+     * shrinkFactor must be at most a quarter of the load factor. Then a halved
+     * table is at most half full, so it takes many puts to grow it again and
+     * the map can't flip between two sizes on alternating puts and removes.
+     */
+    public void setShrinkFactor(double shrinkFactor) {
+        if (shrinkFactor < 0 || shrinkFactor > loadFactor / 4) {
+            throw new IllegalArgumentException("shrinkFactor must be in [0, loadFactor / 4]");
+        }
+        this.shrinkFactor = shrinkFactor;
+    }
+
+    /**
+     * Rebuilds the table at the smallest size, starting from the initial
+     * capacity and doubling, that keeps the load factor within bounds. All
+     * buckets are recreated, which also releases any spare space they hold.
+     */
+    public void compact() {
+        int newBucketNum = initialCapacity;
+        while ((double) itemNum / newBucketNum > loadFactor) {
+            newBucketNum *= 2;
+        }
+        rehash(newBucketNum);
+        modCount++;
     }
 
     @Override
     public Iterator<K> iterator() {
-        throw new UnsupportedOperationException();
+        return new HashIterator<>() {
+            @Override
+            public K next() {
+                return nextNode().key;
+            }
+        };
+    }
+
+    /**
+     * Walks the nodes of the table in bucket order. List buckets with random
+     * access are read by index, so the scan only allocates an iterator for
+     * other bucket types.
+     */
+    private abstract class HashIterator<T> implements Iterator<T> {
+        private final int expectedModCount;
+        private int bucketIx = -1;
+        private List<Node> list;
+        private int listIx;
+        private Iterator<Node> bucketIterator;
+        private Node next;
+
+        HashIterator() {
+            if (oldBuckets != null) {
+                // scan a single table; gets during the scan then can't move nodes
+                migrateBuckets(oldBuckets.length);
+            }
+            expectedModCount = modCount;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (true) {
+                if (list != null && listIx < list.size()) {
+                    next = list.get(listIx++);
+                    return;
+                }
+                if (bucketIterator != null && bucketIterator.hasNext()) {
+                    next = bucketIterator.next();
+                    return;
+                }
+                list = null;
+                bucketIterator = null;
+                if (++bucketIx >= bucketNum) {
+                    return;
+                }
+                Collection<Node> bucket = buckets[bucketIx];
+                if (bucket instanceof List<Node> l && bucket instanceof RandomAccess) {
+                    list = l;
+                    listIx = 0;
+                } else {
+                    bucketIterator = bucket.iterator();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        Node nextNode() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node ret = next;
+            advance();
+            return ret;
+        }
     }
 
     /**
      * Protected helper class to store key/value pairs
      * The protected qualifier allows subclass access
+     * <p>
+     * Nodes are handed out directly by entrySet(), so they follow the
+     * Map.Entry contract for equals() and hashCode().
      */
-    protected class Node {
+    protected class Node implements Map.Entry<K, V> {
         K key;
         V value;
+        /** The spread hash code of key, computed once when the node is created. */
+        final int hash;
 
-        Node(K k, V v) {
+        Node(K k, V v, int h) {
             key = k;
             value = v;
+            hash = h;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V v) {
+            V old = value;
+            value = v;
+            return old;
         }
 
         @Override
@@ -113,17 +655,19 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             if (this == obj) {
                 return true;
             }
+            return obj instanceof Map.Entry<?, ?> other
+                    && key.equals(other.getKey())
+                    && Objects.equals(value, other.getValue());
+        }
 
-            if (obj == null || getClass() != obj.getClass()) {
-                return false;
-            }
-
-            Node other = (Node) obj;
-            if (other.key.equals(key)) {
-                return true;
-            }
-            return false;
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
 
+        @Override
+        public String toString() {
+            return key + "=" + value;
         }
     }
 
@@ -134,6 +678,47 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
     private int bucketNum;
     private int itemNum;
     private int initialCapacity;
+    /** Whether bucket indices can be taken with a mask. Doubling the table
+     * keeps a power of two a power of two, so this never changes. */
+    private final boolean powerOfTwo;
+
+    /* Incremental resizing. While a resize is in progress, buckets is the new
+     * table and oldBuckets is the previous one. Old buckets below migrateIx
+     * have already been moved into the new table. */
+    private final boolean incrementalResize;
+    private Collection<Node>[] oldBuckets;
+    private int migrateIx;
+
+    /** Hashes and compares keys, or null to use their hashCode() and equals(). */
+    private final HashStrategy<? super K> strategy;
+    /** Whether a TreeBucket may order keys with equal hashes by compareTo(),
+     * which is only consistent with the strategy's equality if that is equals(). */
+    private final boolean orderByCompareTo;
+
+    /** See setShrinkFactor(). */
+    private double shrinkFactor;
+
+    /** Null unless enableStats() has been called. */
+    private HashMapStats stats;
+
+    /** Counts structural modifications, so that scans can fail fast. */
+    private int modCount;
+
+    /** Number of old buckets moved into the new table per put/get/remove. Each
+     * resize doubles the table, and the next one is due after at least
+     * 0.5 * loadFactor * bucketNum more puts, so 4 buckets per operation always
+     * finishes the migration first for any reasonable load factor. */
+    private static final int MIGRATE_STEP = 4;
+
+    /** A bucket with more nodes than this is converted into a TreeBucket. */
+    static final int TREEIFY_THRESHOLD = 8;
+    /** A TreeBucket with fewer nodes than this is converted back. Lower than
+     * TREEIFY_THRESHOLD so that a bucket at the boundary doesn't flip on every
+     * put and remove. */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /** The largest power of two that an array length can be. */
+    private static final int MAX_BUCKETS = 1 << 30;
 
     /**
      * Constructors
@@ -154,18 +739,79 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * @param loadFactor      maximum load factor
      */
     public MyHashMap(int initialCapacity, double loadFactor) {
+        this(initialCapacity, loadFactor, false);
+    }
+
+    /**
+     * MyHashMap constructor that can spread each resize over many operations.
+     * <p>
+     * With incrementalResize set, a resize only allocates the new backing array.
+     * Every later put, get, containsKey and remove then moves a few old buckets
+     * into it, so no single operation pays for rehashing the whole table.
+     *
+     * @param initialCapacity   initial size of backing array
+     * @param loadFactor        maximum load factor
+     * @param incrementalResize whether to migrate buckets incrementally on resize
+     */
+    public MyHashMap(int initialCapacity, double loadFactor, boolean incrementalResize) {
+        this(initialCapacity, loadFactor, incrementalResize, HashStrategy.standard());
+    }
+
+    /**
+     * MyHashMap constructor that hashes and compares keys with STRATEGY
+     * instead of their hashCode() and equals().
+     *
+     * @param strategy how to hash and compare keys
+     */
+    public MyHashMap(HashStrategy<? super K> strategy) {
+        this(16, 0.75, false, strategy);
+    }
+
+    /**
+     * MyHashMap constructor with every option.
+     *
+     * @param initialCapacity   initial size of backing array
+     * @param loadFactor        maximum load factor
+     * @param incrementalResize whether to migrate buckets incrementally on resize
+     * @param strategy          how to hash and compare keys
+     */
+    public MyHashMap(int initialCapacity, double loadFactor, boolean incrementalResize,
+                     HashStrategy<? super K> strategy) {
+        this.strategy = strategy == HashStrategy.standard() ? null : Objects.requireNonNull(strategy);
+        this.orderByCompareTo = strategy.hasNaturalEquality();
         buckets = createTable(initialCapacity);
         this.loadFactor = loadFactor;
         this.bucketNum = initialCapacity;
         this.itemNum = 0;
         this.initialCapacity = initialCapacity;
+        this.incrementalResize = incrementalResize;
+        this.powerOfTwo = Integer.bitCount(initialCapacity) == 1;
     }
 
     /**
      * Returns a new node to be placed in a hash table bucket
+     * <p>
+     * Subclasses can override this to return a subclass of Node that
+     * carries extra links, and keep them up to date in the hooks below.
      */
-    private Node createNode(K key, V value) {
-        return new Node(key, value);
+    protected Node createNode(K key, V value, int hashVal) {
+        return new Node(key, value, hashVal);
+    }
+
+    /* Hooks for subclasses that keep their own structure over the nodes,
+     * such as BoundedCache's eviction order. They run once the table itself
+     * is consistent, so they may call put() or remove(). */
+
+    /** Called when get() finds NODE, or put() replaces its value. */
+    protected void afterNodeAccess(Node node) {
+    }
+
+    /** Called when put() has added NODE to the table. */
+    protected void afterNodeInsertion(Node node) {
+    }
+
+    /** Called when remove() has taken NODE out of the table. */
+    protected void afterNodeRemoval(Node node) {
     }
 
     /**
@@ -215,26 +861,574 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
 
     private void resize() {
 //        System.out.println("Resizing");
+        if (oldBuckets != null) {
+            // the previous resize must finish before the next one starts
+            migrateBuckets(oldBuckets.length);
+        }
         int newBucketNum = bucketNum * 2;
+        if (incrementalResize) {
+            if (stats != null) {
+                stats.recordResize();
+                stats.recordLoad(itemNum, bucketNum);
+                stats.recordLoad(itemNum, newBucketNum);
+            }
+            oldBuckets = buckets;
+            migrateIx = 0;
+            // buckets are created as the old buckets that feed them are migrated
+            buckets = new Collection[newBucketNum];
+            bucketNum = newBucketNum;
+            // a resize can start in any update, even one that only replaces a value
+            modCount++;
+            migrateBuckets(MIGRATE_STEP);
+            return;
+        }
+        rehash(newBucketNum);
+    }
+
+    private boolean needShrink() {
+        return itemNum < shrinkFactor * bucketNum && bucketNum / 2 >= initialCapacity;
+    }
+
+    /** Moves every node into a new table of NEWBUCKETNUM buckets, all at once. */
+    private void rehash(int newBucketNum) {
+        if (oldBuckets != null) {
+            migrateBuckets(oldBuckets.length);
+        }
+        long start = stats == null ? 0 : System.nanoTime();
         Collection<Node>[] newBuckets = createTable(newBucketNum);
+        boolean crowded = false;
         for (int ix = 0; ix < bucketNum; ix++) {
             for (Node node : buckets[ix]) {
-                K key = node.key;
-                V value = node.value;
-                int hashVal = key.hashCode();
-                int bucketIn = Math.floorMod(key.hashCode(), newBucketNum);
-
-                for (Node newNode : newBuckets[bucketIn]) {
-                    if (newNode.key.equals(key)) {
-                        newNode.value = value;
-                        break;
+                // keys are already distinct, so nodes can be moved as they are
+                int bucketIn = indexFor(node.hash, newBucketNum);
+                newBuckets[bucketIn].add(node);
+            }
+            crowded |= buckets[ix].size() > TREEIFY_THRESHOLD / 2;
+        }
+        if (crowded) {
+            // halving merges pairs of buckets, doubling splits them, so only
+            // a bucket that was at least half the threshold can end up over it
+            for (int ix = 0; ix < newBucketNum; ix++) {
+                treeifyIfNeeded(newBuckets, ix);
+            }
+        }
+        if (stats != null) {
+            stats.recordResize();
+            stats.recordResizeTime(System.nanoTime() - start);
+            stats.recordLoad(itemNum, bucketNum);
+            stats.recordLoad(itemNum, newBucketNum);
+        }
+        bucketNum = newBucketNum;
+        buckets = newBuckets;
+        modCount++;
+    }
+
+    /**
+     * Moves up to COUNT old buckets into the new table. Since the table size
+     * doubles, old bucket i only feeds new buckets i and i + oldBuckets.length,
+     * which are created here.
+     */
+    private void migrateBuckets(int count) {
+        long start = stats == null ? 0 : System.nanoTime();
+        int end = Math.min(migrateIx + count, oldBuckets.length);
+        for (; migrateIx < end; migrateIx++) {
+            buckets[migrateIx] = createBucket();
+            buckets[migrateIx + oldBuckets.length] = createBucket();
+            for (Node node : oldBuckets[migrateIx]) {
+                buckets[indexFor(node.hash, bucketNum)].add(node);
+            }
+            if (oldBuckets[migrateIx].size() > TREEIFY_THRESHOLD) {
+                treeifyIfNeeded(buckets, migrateIx);
+                treeifyIfNeeded(buckets, migrateIx + oldBuckets.length);
+            }
+            oldBuckets[migrateIx] = null;
+        }
+        if (migrateIx == oldBuckets.length) {
+            oldBuckets = null;
+        }
+        if (stats != null) {
+            stats.recordResizeTime(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the table whose bucket holds HASHVAL. During an incremental
+     * resize this is the old table until that bucket has been migrated.
+     */
+    private Collection<Node>[] tableFor(int hashVal) {
+        if (oldBuckets != null && indexFor(hashVal, oldBuckets.length) >= migrateIx) {
+            return oldBuckets;
+        }
+        return buckets;
+    }
+
+    /**
+     * Does the bookkeeping that precedes every update: counts the operation,
+     * and starts or continues a resize.
+     */
+    private void prepareForUpdate() {
+        if (stats != null) {
+            stats.recordOperation();
+        }
+        if (needResize()) {
+            resize();
+        } else if (oldBuckets != null) {
+            migrateBuckets(MIGRATE_STEP);
+        }
+    }
+
+    /** Prepares for an update, then returns the node holding KEY, whose hash is HASHVAL, or null. */
+    private Node findForUpdate(K key, int hashVal) {
+        prepareForUpdate();
+        Collection<Node>[] table = tableFor(hashVal);
+        return findNode(table[indexFor(hashVal, table.length)], key, hashVal);
+    }
+
+    /**
+     * Adds a node for KEY, which is not in the map, and returns it. Finds
+     * the bucket again, because a get() from a mapping function may have
+     * migrated it since findForUpdate().
+     */
+    private Node insertNode(K key, V value, int hashVal) {
+        Collection<Node>[] table = tableFor(hashVal);
+        int bucketIn = indexFor(hashVal, table.length);
+        Node node = createNode(key, value, hashVal);
+        table[bucketIn].add(node);
+        itemNum++;
+        modCount++;
+        treeifyIfNeeded(table, bucketIn);
+        afterNodeInsertion(node);
+        return node;
+    }
+
+    /** Returns the node holding KEY as get() does, and reports the access. */
+    private Node getNode(K key) {
+        if (oldBuckets != null) {
+            migrateBuckets(MIGRATE_STEP);
+        }
+        Node node = stats == null ? findNode(key) : findNodeCounting(key);
+        if (node != null) {
+            afterNodeAccess(node);
+        }
+        return node;
+    }
+
+    /** Throws ConcurrentModificationException if the map was modified since modCount was EXPECTEDMODCOUNT. */
+    private void checkModCount(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /** Returns the node holding KEY, or null if KEY is not present. */
+    private Node findNode(K key) {
+        int hashVal = hashOf(key);
+        Collection<Node>[] table = tableFor(hashVal);
+        return findNode(table[indexFor(hashVal, table.length)], key, hashVal);
+    }
+
+    /** Same as findNode(KEY), but records the lookup in stats. */
+    private Node findNodeCounting(K key) {
+        stats.recordOperation();
+        int hashVal = hashOf(key);
+        Collection<Node>[] table = tableFor(hashVal);
+        Collection<Node> bucket = table[indexFor(hashVal, table.length)];
+        Node found = null;
+        int probes = 0;
+        if (bucket instanceof MyHashMap<?, ?>.TreeBucket) {
+            TreeBucket tree = (TreeBucket) bucket;
+            found = tree.find(key, hashVal);
+            probes = tree.probes;
+        } else {
+            for (Node node : bucket) {
+                probes++;
+                if (node.hash == hashVal && sameKey(node.key, key)) {
+                    found = node;
+                    break;
+                }
+            }
+        }
+        stats.recordLookup(found != null, probes);
+        return found;
+    }
+
+    /** Returns the node in BUCKET holding KEY, whose hash is HASHVAL, or null. */
+    private Node findNode(Collection<Node> bucket, K key, int hashVal) {
+        if (bucket instanceof MyHashMap<?, ?>.TreeBucket) {
+            return ((TreeBucket) bucket).find(key, hashVal);
+        }
+        for (Node node : bucket) {
+            if (node.hash == hashVal && sameKey(node.key, key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the hash of KEY that MyHashMap indexes on. XORs the high half
+     * of hashCode() into the low half, since a power-of-two table only looks
+     * at the low bits.
+     */
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns the hash of KEY under this map's strategy, spread like hash(). */
+    final int hashOf(K key) {
+        if (strategy == null) {
+            return hash(key);
+        }
+        int h = strategy.hash(key);
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns whether STORED, a key in the map, is the same key as KEY. */
+    private boolean sameKey(K stored, K key) {
+        return strategy == null ? stored.equals(key) : strategy.equals(stored, key);
+    }
+
+    /**
+     * Finds and removes the node holding KEY from BUCKET in a single pass,
+     * without allocating a temporary node to match against. Returns the
+     * removed node, or null if KEY is not present.
+     */
+    private Node unlink(Collection<Node> bucket, K key, int hashVal) {
+        if (bucket instanceof List<Node> list && bucket instanceof RandomAccess) {
+            // index-based, so ArrayList and Stack buckets don't need an iterator
+            for (int ix = 0; ix < list.size(); ix++) {
+                Node node = list.get(ix);
+                if (node.hash == hashVal && sameKey(node.key, key)) {
+                    list.remove(ix);
+                    return node;
+                }
+            }
+            return null;
+        }
+        for (Iterator<Node> it = bucket.iterator(); it.hasNext(); ) {
+            Node node = it.next();
+            if (node.hash == hashVal && sameKey(node.key, key)) {
+                it.remove();
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /** Returns the bucket index of HASHVAL in a table of LENGTH buckets. */
+    private int indexFor(int hashVal, int length) {
+        return powerOfTwo ? hashVal & (length - 1) : Math.floorMod(hashVal, length);
+    }
+
+    /** Converts bucket IX of TABLE into a TreeBucket if it has grown too large. */
+    private void treeifyIfNeeded(Collection<Node>[] table, int ix) {
+        Collection<Node> bucket = table[ix];
+        if (bucket.size() > TREEIFY_THRESHOLD && !(bucket instanceof MyHashMap<?, ?>.TreeBucket)) {
+            TreeBucket tree = new TreeBucket();
+            tree.addAll(bucket);
+            table[ix] = tree;
+        }
+    }
+
+    /** Returns an ordinary bucket holding the nodes of TREE. */
+    private Collection<Node> untreeify(TreeBucket tree) {
+        Collection<Node> bucket = createBucket();
+        bucket.addAll(tree);
+        return bucket;
+    }
+
+    /**
+     * A bucket stored as a left-leaning red-black tree, used once a bucket
+     * has too many nodes to scan linearly.
+     * <p>
+     * Nodes are ordered by hash, then by key class, then by
+     * compareTo() for Comparable keys, and finally by insertion order so
+     * that every tree node has a distinct position. Keys that tie
+     * on the first two can only be told apart by equals(), so find() searches
+     * every tree node in their range. A HashStrategy with its own equality
+     * orders nodes by hash alone.
+     */
+    private class TreeBucket extends AbstractCollection<Node> {
+        private TreeNode root;
+        private int size;
+        private long nextSeq;
+        /** Tree nodes visited by the last find(), for HashMapStats. */
+        private int probes;
+
+        private class TreeNode {
+            final Node node;
+            final long seq;
+            TreeNode left;
+            TreeNode right;
+            boolean red;
+
+            TreeNode(Node node, long seq) {
+                this.node = node;
+                this.seq = seq;
+                this.red = true;
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean add(Node node) {
+            TreeNode t = new TreeNode(node, nextSeq++);
+            root = insert(root, t);
+            root.red = false;
+            size++;
+            return true;
+        }
+
+        /** Returns the node holding KEY, whose hash is HASH, or null. */
+        Node find(K key, int hash) {
+            probes = 0;
+            return find(root, key, hash);
+        }
+
+        private Node find(TreeNode t, K key, int hash) {
+            while (t != null) {
+                probes++;
+                int cmp = compareKeys(hash, key, t);
+                if (cmp < 0) {
+                    t = t.left;
+                } else if (cmp > 0) {
+                    t = t.right;
+                } else if (sameKey(t.node.key, key)) {
+                    return t.node;
+                } else {
+                    // a tie: KEY may be on either side
+                    Node found = find(t.left, key, hash);
+                    if (found != null) {
+                        return found;
                     }
+                    t = t.right;
                 }
+            }
+            return null;
+        }
 
-                newBuckets[bucketIn].add(createNode(key, value));
+        /** Removes NODE, which must be in this tree. */
+        void delete(Node node) {
+            TreeNode target = locate(root, node);
+            if (!isRed(root.left) && !isRed(root.right)) {
+                root.red = true;
+            }
+            root = delete(root, target);
+            if (root != null) {
+                root.red = false;
             }
+            size--;
+        }
+
+        /** Returns the tree node wrapping NODE. */
+        private TreeNode locate(TreeNode t, Node node) {
+            while (t != null) {
+                int cmp = compareKeys(node.hash, node.key, t);
+                if (cmp < 0) {
+                    t = t.left;
+                } else if (cmp > 0) {
+                    t = t.right;
+                } else if (t.node == node) {
+                    return t;
+                } else {
+                    TreeNode found = locate(t.left, node);
+                    if (found != null) {
+                        return found;
+                    }
+                    t = t.right;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new Iterator<>() {
+                private final Deque<TreeNode> stack = new ArrayDeque<>();
+
+                {
+                    pushLeft(root);
+                }
+
+                private void pushLeft(TreeNode t) {
+                    for (; t != null; t = t.left) {
+                        stack.push(t);
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return !stack.isEmpty();
+                }
+
+                @Override
+                public Node next() {
+                    if (stack.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    TreeNode t = stack.pop();
+                    pushLeft(t.right);
+                    return t.node;
+                }
+            };
+        }
+
+        /**
+         * Compares a key to the key of T, ignoring insertion order. Keys of
+         * different classes are ordered by class name first, so that compareTo()
+         * is only used between keys of the same class. Under a strategy with its
+         * own equality, keys of different classes may be equal, so keys with
+         * equal hashes are left unordered.
+         */
+        @SuppressWarnings("unchecked")
+        private int compareKeys(int hash, K key, TreeNode t) {
+            if (hash != t.node.hash) {
+                return hash < t.node.hash ? -1 : 1;
+            }
+            if (!orderByCompareTo) {
+                return 0;
+            }
+            K other = t.node.key;
+            if (key.getClass() != other.getClass()) {
+                return key.getClass().getName().compareTo(other.getClass().getName());
+            }
+            if (key instanceof Comparable) {
+                try {
+                    return ((Comparable<Object>) key).compareTo(other);
+                } catch (ClassCastException e) {
+                    // Comparable to some other type, so it can't order these keys
+                    return 0;
+                }
+            }
+            return 0;
+        }
+
+        /** Total order over tree nodes. */
+        private int compare(TreeNode a, TreeNode b) {
+            int cmp = compareKeys(a.node.hash, a.node.key, b);
+            return cmp != 0 ? cmp : Long.compare(a.seq, b.seq);
+        }
+
+        private TreeNode insert(TreeNode h, TreeNode t) {
+            if (h == null) {
+                return t;
+            }
+            if (compare(t, h) < 0) {
+                h.left = insert(h.left, t);
+            } else {
+                h.right = insert(h.right, t);
+            }
+            return balance(h);
+        }
+
+        private TreeNode delete(TreeNode h, TreeNode target) {
+            if (compare(target, h) < 0) {
+                if (!isRed(h.left) && !isRed(h.left.left)) {
+                    h = moveRedLeft(h);
+                }
+                h.left = delete(h.left, target);
+            } else {
+                if (isRed(h.left)) {
+                    h = rotateRight(h);
+                }
+                if (h == target && h.right == null) {
+                    return null;
+                }
+                if (!isRed(h.right) && !isRed(h.right.left)) {
+                    h = moveRedRight(h);
+                }
+                if (h == target) {
+                    TreeNode min = h.right;
+                    while (min.left != null) {
+                        min = min.left;
+                    }
+                    h.right = deleteMin(h.right);
+                    // put min where h was
+                    min.left = h.left;
+                    min.right = h.right;
+                    min.red = h.red;
+                    h = min;
+                } else {
+                    h.right = delete(h.right, target);
+                }
+            }
+            return balance(h);
+        }
+
+        private TreeNode deleteMin(TreeNode h) {
+            if (h.left == null) {
+                return null;
+            }
+            if (!isRed(h.left) && !isRed(h.left.left)) {
+                h = moveRedLeft(h);
+            }
+            h.left = deleteMin(h.left);
+            return balance(h);
+        }
+
+        private boolean isRed(TreeNode t) {
+            return t != null && t.red;
+        }
+
+        private TreeNode rotateLeft(TreeNode h) {
+            TreeNode x = h.right;
+            h.right = x.left;
+            x.left = h;
+            x.red = h.red;
+            h.red = true;
+            return x;
+        }
+
+        private TreeNode rotateRight(TreeNode h) {
+            TreeNode x = h.left;
+            h.left = x.right;
+            x.right = h;
+            x.red = h.red;
+            h.red = true;
+            return x;
+        }
+
+        private void flipColors(TreeNode h) {
+            h.red = !h.red;
+            h.left.red = !h.left.red;
+            h.right.red = !h.right.red;
+        }
+
+        private TreeNode moveRedLeft(TreeNode h) {
+            flipColors(h);
+            if (isRed(h.right.left)) {
+                h.right = rotateRight(h.right);
+                h = rotateLeft(h);
+                flipColors(h);
+            }
+            return h;
+        }
+
+        private TreeNode moveRedRight(TreeNode h) {
+            flipColors(h);
+            if (isRed(h.left.left)) {
+                h = rotateRight(h);
+                flipColors(h);
+            }
+            return h;
+        }
+
+        private TreeNode balance(TreeNode h) {
+            if (isRed(h.right) && !isRed(h.left)) {
+                h = rotateLeft(h);
+            }
+            if (isRed(h.left) && isRed(h.left.left)) {
+                h = rotateRight(h);
+            }
+            if (isRed(h.left) && isRed(h.right)) {
+                flipColors(h);
+            }
+            return h;
         }
-        bucketNum = newBucketNum;
-        buckets = newBuckets;
     }
 }
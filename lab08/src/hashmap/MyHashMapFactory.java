@@ -16,7 +16,17 @@ public class MyHashMapFactory {
      * @param bucketType the type of bucket to use
      */
     public static <K, V> MyHashMap<K, V> createBucketedMap(Class<? extends Collection> bucketType) {
-        return new MyHashMap<>() {
+        return createBucketedMap(bucketType, 0);
+    }
+
+    /** Returns a MyHashMap with the specified bucket type, whose table is
+     * already large enough for expectedSize items.
+     * @param bucketType the type of bucket to use
+     * @param expectedSize the number of items the map should hold without resizing
+     */
+    public static <K, V> MyHashMap<K, V> createBucketedMap(Class<? extends Collection> bucketType,
+                                                           int expectedSize) {
+        return new MyHashMap<>(MyHashMap.capacityFor(expectedSize, 0.75), 0.75) {
             @Override
             protected Collection<Node> createBucket() {
                 try {
@@ -33,4 +43,43 @@ public class MyHashMapFactory {
             }
         };
     }
+
+    /** Returns an OpenAddressingMap, so that the timing tests can compare
+     * linear probing against each of the bucketed maps above.
+     */
+    public static <K, V> Map61B<K, V> createOpenAddressingMap() {
+        return new OpenAddressingMap<>() {
+            // for the timing tests
+            @Override
+            public String toString() {
+                return "OpenAddressingMap with linear probing";
+            }
+        };
+    }
+
+    /** Returns a CuckooHashMap, so that the timing tests can compare
+     * bounded-probe lookups against the bucketed maps above.
+     */
+    public static <K, V> Map61B<K, V> createCuckooMap() {
+        return new CuckooHashMap<>() {
+            // for the timing tests
+            @Override
+            public String toString() {
+                return "CuckooHashMap with 4-slot buckets";
+            }
+        };
+    }
+
+    /** Returns a SwissTableMap, so that the timing tests can compare
+     * probing eight control bytes at a time against the maps above.
+     */
+    public static <K, V> Map61B<K, V> createSwissTableMap() {
+        return new SwissTableMap<>() {
+            // for the timing tests
+            @Override
+            public String toString() {
+                return "SwissTableMap with 8-slot groups";
+            }
+        };
+    }
 }
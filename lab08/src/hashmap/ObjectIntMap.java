@@ -0,0 +1,268 @@
+package hashmap;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A map from object keys to primitive int values, for counting and other
+ * workloads where a MyHashMap<K, Integer> would box a new Integer on every
+ * update.
+ * <p>
+ * Uses the same linear probing layout as OpenAddressingMap: keys, values and
+ * cached hashes in parallel arrays with backward-shift deletion. Updating the
+ * value of a present key, including addTo(), never allocates.
+ * <p>
+ * Methods follow Map61B where they can. Since an int cannot be null, get()
+ * and remove() return noEntryValue() for a missing key; use containsKey()
+ * or getOrDefault() when that value is ambiguous.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon remove().
+ */
+public class ObjectIntMap<K> implements Iterable<K> {
+
+    /* Instance Variables */
+    private Object[] keys;
+    private int[] values;
+    private int[] hashes;
+    private int mask;
+    private int itemNum;
+    private int resizeThreshold;
+    private final double loadFactor;
+    private final int initialCapacity;
+    private final int noEntryValue;
+
+    /**
+     * Constructors
+     */
+    public ObjectIntMap() {
+        this(16, 0.5, 0);
+    }
+
+    public ObjectIntMap(int initialCapacity) {
+        this(initialCapacity, 0.5, 0);
+    }
+
+    /**
+     * ObjectIntMap constructor that creates backing arrays of at least
+     * initialCapacity slots, rounded up to a power of two.
+     *
+     * @param initialCapacity initial size of backing arrays
+     * @param loadFactor      maximum load factor, must be in (0, 1)
+     * @param noEntryValue    value returned by get() and remove() for missing keys
+     */
+    public ObjectIntMap(int initialCapacity, double loadFactor, int noEntryValue) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        this.initialCapacity = OpenAddressingMap.tableSizeFor(initialCapacity);
+        this.noEntryValue = noEntryValue;
+        createTable(this.initialCapacity);
+    }
+
+    /** Associates VALUE with KEY, replacing any previous value. */
+    public void put(K key, int value) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        int ix = findSlot(key, hash);
+        if (keys[ix] != null) {
+            values[ix] = value;
+        } else {
+            insertAt(ix, key, hash, value);
+        }
+    }
+
+    /** Returns the value for KEY, or noEntryValue() if KEY is not present. */
+    public int get(K key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    /** Returns the value for KEY, or DEFAULTVALUE if KEY is not present. */
+    public int getOrDefault(K key, int defaultValue) {
+        int ix = findSlot(key, OpenAddressingMap.spread(key.hashCode()));
+        return keys[ix] != null ? values[ix] : defaultValue;
+    }
+
+    public boolean containsKey(K key) {
+        return keys[findSlot(key, OpenAddressingMap.spread(key.hashCode()))] != null;
+    }
+
+    /**
+     * Adds DELTA to the value for KEY, treating a missing key as having
+     * value 0, and returns the new value. Probes the table only once.
+     */
+    public int addTo(K key, int delta) {
+        return adjustOrPut(key, delta, delta);
+    }
+
+    /** Adds one to the value for KEY and returns the new value. */
+    public int increment(K key) {
+        return adjustOrPut(key, 1, 1);
+    }
+
+    /**
+     * Adds DELTA to the value for KEY if KEY is present, otherwise
+     * associates KEY with PUTVALUE. Returns the resulting value.
+     */
+    public int adjustOrPut(K key, int delta, int putValue) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        int ix = findSlot(key, hash);
+        if (keys[ix] != null) {
+            values[ix] += delta;
+            return values[ix];
+        }
+        insertAt(ix, key, hash, putValue);
+        return putValue;
+    }
+
+    /** Removes KEY and returns its value, or noEntryValue() if KEY was not present. */
+    public int remove(K key) {
+        int ix = findSlot(key, OpenAddressingMap.spread(key.hashCode()));
+        if (keys[ix] == null) {
+            return noEntryValue;
+        }
+        int old = values[ix];
+        deleteSlot(ix);
+        itemNum--;
+        return old;
+    }
+
+    public int size() {
+        return itemNum;
+    }
+
+    public void clear() {
+        createTable(initialCapacity);
+        itemNum = 0;
+    }
+
+    /** Returns the value that get() and remove() use to mean "no such key". */
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (Object k : keys) {
+            if (k != null) {
+                set.add((K) k);
+            }
+        }
+        return set;
+    }
+
+    /** Calls ACTION on every key and its value, without boxing the values. */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super K> action) {
+        for (int ix = 0; ix < keys.length; ix++) {
+            if (keys[ix] != null) {
+                action.accept((K) keys[ix], values[ix]);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Returns the slot holding KEY, or the empty slot where KEY would be
+     * inserted if it is not present.
+     */
+    private int findSlot(K key, int hash) {
+        int ix = hash & mask;
+        while (keys[ix] != null) {
+            if (hashes[ix] == hash && keys[ix].equals(key)) {
+                return ix;
+            }
+            ix = (ix + 1) & mask;
+        }
+        return ix;
+    }
+
+    private void insertAt(int ix, K key, int hash, int value) {
+        keys[ix] = key;
+        values[ix] = value;
+        hashes[ix] = hash;
+        itemNum++;
+        if (itemNum > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** Backward-shift deletion, see OpenAddressingMap. */
+    private void deleteSlot(int ix) {
+        int hole = ix;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+    }
+
+    private void resize(int newCapacity) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldHashes = hashes;
+        createTable(newCapacity);
+        for (int ix = 0; ix < oldKeys.length; ix++) {
+            if (oldKeys[ix] == null) {
+                continue;
+            }
+            int newIx = oldHashes[ix] & mask;
+            while (keys[newIx] != null) {
+                newIx = (newIx + 1) & mask;
+            }
+            keys[newIx] = oldKeys[ix];
+            values[newIx] = oldValues[ix];
+            hashes[newIx] = oldHashes[ix];
+        }
+    }
+
+    private void createTable(int tableSize) {
+        keys = new Object[tableSize];
+        values = new int[tableSize];
+        hashes = new int[tableSize];
+        mask = tableSize - 1;
+        resizeThreshold = Math.min((int) (tableSize * loadFactor), tableSize - 1);
+    }
+
+    /** An iterator that walks the key array in slot order. */
+    private class KeyIterator implements Iterator<K> {
+        private int ix = advance(0);
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ix < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K ret = (K) keys[ix];
+            ix = advance(ix + 1);
+            return ret;
+        }
+    }
+}
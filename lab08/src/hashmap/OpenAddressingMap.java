@@ -0,0 +1,257 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * An open-addressing Map61B implementation that uses linear probing.
+ * <p>
+ * Unlike MyHashMap, there are no Node objects and no bucket collections.
+ * Keys, values and cached hash codes live in three parallel arrays, so a
+ * lookup walks a contiguous run of slots instead of chasing pointers from
+ * the table to a bucket to a node to a key. Cached hashes let us skip
+ * equals() for most non-matching slots and avoid calling hashCode() again
+ * when resizing.
+ * <p>
+ * The table length is always a power of two. Removal uses backward-shift
+ * deletion, so there are no tombstones and probe runs never get longer
+ * than they would be for the same set of keys inserted from scratch.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon remove().
+ */
+public class OpenAddressingMap<K, V> implements Map61B<K, V> {
+
+    /** The largest power of two that an array length can be. */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /* Instance Variables */
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int mask;
+    private int itemNum;
+    private int resizeThreshold;
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public OpenAddressingMap() {
+        this(16, 0.5);
+    }
+
+    public OpenAddressingMap(int initialCapacity) {
+        this(initialCapacity, 0.5);
+    }
+
+    /**
+     * OpenAddressingMap constructor that creates backing arrays of at least
+     * initialCapacity slots, rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= loadFactor
+     *
+     * @param initialCapacity initial size of backing arrays
+     * @param loadFactor      maximum load factor, must be in (0, 1)
+     */
+    public OpenAddressingMap(int initialCapacity, double loadFactor) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        this.initialCapacity = tableSizeFor(initialCapacity);
+        createTable(this.initialCapacity);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int hash = spread(key.hashCode());
+        int ix = hash & mask;
+        while (keys[ix] != null) {
+            if (hashes[ix] == hash && keys[ix].equals(key)) {
+                values[ix] = value;
+                return;
+            }
+            ix = (ix + 1) & mask;
+        }
+        keys[ix] = key;
+        values[ix] = value;
+        hashes[ix] = hash;
+        itemNum++;
+        if (itemNum > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int ix = indexOf(key);
+        return ix < 0 ? null : (V) values[ix];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return itemNum;
+    }
+
+    @Override
+    public void clear() {
+        createTable(initialCapacity);
+        itemNum = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (Object k : keys) {
+            if (k != null) {
+                set.add((K) k);
+            }
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int ix = indexOf(key);
+        if (ix < 0) {
+            return null;
+        }
+        V old = (V) values[ix];
+        deleteSlot(ix);
+        itemNum--;
+        return old;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator();
+    }
+
+    /** Returns the slot holding KEY, or -1 if KEY is not present. */
+    private int indexOf(K key) {
+        int hash = spread(key.hashCode());
+        int ix = hash & mask;
+        while (keys[ix] != null) {
+            if (hashes[ix] == hash && keys[ix].equals(key)) {
+                return ix;
+            }
+            ix = (ix + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties slot IX and shifts later members of its probe run backwards
+     * so that every remaining key is still reachable from its home slot.
+     */
+    private void deleteSlot(int ix) {
+        int hole = ix;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            // distance from home to next, and from home to hole, along the probe sequence
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        values[hole] = null;
+    }
+
+    private void resize(int newCapacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        int oldMask = mask;
+        createTable(newCapacity);
+
+        // Start right after an empty slot so that each probe run is copied in
+        // its original order, even if it wraps around the end of the table.
+        int start = 0;
+        while (oldKeys[start] != null) {
+            start++;
+        }
+        for (int n = 0; n < oldKeys.length; n++) {
+            int ix = (start + n) & oldMask;
+            if (oldKeys[ix] == null) {
+                continue;
+            }
+            int newIx = oldHashes[ix] & mask;
+            while (keys[newIx] != null) {
+                newIx = (newIx + 1) & mask;
+            }
+            keys[newIx] = oldKeys[ix];
+            values[newIx] = oldValues[ix];
+            hashes[newIx] = oldHashes[ix];
+        }
+    }
+
+    private void createTable(int tableSize) {
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        mask = tableSize - 1;
+        // always leave at least one empty slot so that probing terminates
+        resizeThreshold = Math.min((int) (tableSize * loadFactor), tableSize - 1);
+    }
+
+    /**
+     * Scrambles the bits of a hashCode so that keys whose hash codes differ
+     * only in their high bits still land in different slots of a
+     * power-of-two table.
+     */
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns the smallest power of two that is >= N, but at most MAX_CAPACITY. */
+    static int tableSizeFor(int n) {
+        if (n >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /** An iterator that walks the key array in slot order. */
+    private class KeyIterator implements Iterator<K> {
+        private int ix = advance(0);
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ix < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K ret = (K) keys[ix];
+            ix = advance(ix + 1);
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package hashmap;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Map61B backed by a persistent hash array mapped trie (HAMT).
+ * <p>
+ * The trie branches on 5 bits of the key's hash at each level. A node keeps
+ * a 32-bit bitmap of which branches are in use and an array holding only
+ * those branches, each either a key-value leaf or a child node. Nodes are
+ * never modified once built: an update copies the nodes on the path from
+ * the root to the key, at most about seven small arrays, and shares every
+ * other node with the previous version. Keys whose hashes are equal in all
+ * 32 bits share a collision node, searched linearly. Removal pulls a lone
+ * remaining leaf up into its parent, so the shape of the trie depends only
+ * on the keys it holds.
+ * <p>
+ * The map itself holds a reference to its current version. snapshot() is
+ * O(1): it returns a new map starting from that version, and later writes
+ * to either map are invisible to the other. with() and without() return an
+ * updated map and leave this one unchanged. Readers never lock, and may run
+ * on any thread while another thread writes; they see the latest version
+ * published before they started. Writes publish each new version with a
+ * compare-and-set, so concurrent writers are also safe, but retry when they
+ * race. Iterators walk the version that was current when they were created
+ * and never throw ConcurrentModificationException.
+ * <p>
+ * Assumes null keys will never be inserted.
+ */
+public class PersistentHashMap<K, V> implements Map61B<K, V> {
+
+    /** Hash bits consumed per level of the trie. */
+    private static final int BITS = 5;
+    private static final int FRAGMENT_MASK = (1 << BITS) - 1;
+    /** Seven bitmap levels cover 32 bits, plus one level of collision nodes. */
+    private static final int MAX_DEPTH = 8;
+
+    private static final BitmapNode EMPTY_ROOT = new BitmapNode(0, new Object[0]);
+    private static final Version EMPTY = new Version(EMPTY_ROOT, 0);
+
+    /* Instance Variables */
+    private final AtomicReference<Version> current;
+
+    /** Constructs an empty map. */
+    public PersistentHashMap() {
+        this(EMPTY);
+    }
+
+    private PersistentHashMap(Version version) {
+        current = new AtomicReference<>(version);
+    }
+
+    /**
+     * Returns a map holding the same mappings as this one, in O(1) time.
+     * The two maps share structure but are independent: a write to either
+     * one does not affect the other.
+     */
+    public PersistentHashMap<K, V> snapshot() {
+        return new PersistentHashMap<>(current.get());
+    }
+
+    /** Returns a new map that also maps KEY to VALUE. This map is unchanged. */
+    public PersistentHashMap<K, V> with(K key, V value) {
+        return new PersistentHashMap<>(current.get().put(key, value, new Change()));
+    }
+
+    /** Returns a new map without KEY. This map is unchanged. */
+    public PersistentHashMap<K, V> without(K key) {
+        return new PersistentHashMap<>(current.get().remove(key, new Change()));
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Change change = new Change();
+        Version v;
+        Version next;
+        do {
+            v = current.get();
+            next = v.put(key, value, change);
+        } while (next != v && !current.compareAndSet(v, next));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Leaf leaf = current.get().root.find(key, OpenAddressingMap.spread(key.hashCode()), 0);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return current.get().root.find(key, OpenAddressingMap.spread(key.hashCode()), 0) != null;
+    }
+
+    @Override
+    public int size() {
+        return current.get().size;
+    }
+
+    @Override
+    public void clear() {
+        current.set(EMPTY);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        Change change = new Change();
+        Version v;
+        Version next;
+        do {
+            v = current.get();
+            next = v.remove(key, change);
+        } while (next != v && !current.compareAndSet(v, next));
+        return (V) change.oldValue;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator<>(current.get().root);
+    }
+
+    /** An immutable root and the number of keys under it. */
+    private record Version(BitmapNode root, int size) {
+
+        /** Returns the version with KEY mapped to VALUE, or this if it already was. */
+        Version put(Object key, Object value, Change change) {
+            change.reset();
+            Leaf leaf = new Leaf(OpenAddressingMap.spread(key.hashCode()), key, value);
+            BitmapNode newRoot = (BitmapNode) root.put(leaf, 0, change);
+            if (newRoot == root) {
+                return this;
+            }
+            return new Version(newRoot, change.found ? size : size + 1);
+        }
+
+        /** Returns the version without KEY, or this if KEY is absent. */
+        Version remove(Object key, Change change) {
+            change.reset();
+            Node newRoot = root.remove(key, OpenAddressingMap.spread(key.hashCode()), 0, change);
+            if (newRoot == root) {
+                return this;
+            }
+            return newRoot == null ? EMPTY : new Version((BitmapNode) newRoot, size - 1);
+        }
+    }
+
+    /** What an update found, reported back up to the Version that made it. */
+    private static final class Change {
+        boolean found;
+        Object oldValue;
+
+        void reset() {
+            found = false;
+            oldValue = null;
+        }
+    }
+
+    /** A key-value mapping and the key's spread hash. */
+    private record Leaf(int hash, Object key, Object value) {
+    }
+
+    /**
+     * A trie node. SLOTS holds leaves and child nodes; put() and remove()
+     * return this when nothing changed, so unchanged paths are never copied.
+     */
+    private abstract static sealed class Node permits BitmapNode, CollisionNode {
+        final Object[] slots;
+
+        Node(Object[] slots) {
+            this.slots = slots;
+        }
+
+        /** Returns the leaf for KEY, or null. SHIFT is this node's depth times BITS. */
+        abstract Leaf find(Object key, int hash, int shift);
+
+        /** Returns a node that also holds LEAF, replacing any leaf with the same key. */
+        abstract Node put(Leaf leaf, int shift, Change change);
+
+        /** Returns a node without KEY, or null if that leaves it empty. */
+        abstract Node remove(Object key, int hash, int shift, Change change);
+
+        /** Returns the only leaf in this node if it holds nothing else, or null. */
+        Leaf onlyLeaf() {
+            return slots.length == 1 && slots[0] instanceof Leaf leaf ? leaf : null;
+        }
+    }
+
+    /** A node that branches on the hash bits at its level, holding only the branches in use. */
+    private static final class BitmapNode extends Node {
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            super(slots);
+            this.bitmap = bitmap;
+        }
+
+        /** Returns the position in SLOTS of the branch for BIT. */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            BitmapNode node = this;
+            // loop down the bitmap levels instead of recursing, since most lookups end in one
+            while (true) {
+                int bit = bit(hash, shift);
+                if ((node.bitmap & bit) == 0) {
+                    return null;
+                }
+                Object slot = node.slots[node.index(bit)];
+                if (slot instanceof Leaf leaf) {
+                    return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+                }
+                shift += BITS;
+                if (slot instanceof CollisionNode collision) {
+                    return collision.find(key, hash, shift);
+                }
+                node = (BitmapNode) slot;
+            }
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift, Change change) {
+            int bit = bit(leaf.hash, shift);
+            int ix = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, ix);
+                newSlots[ix] = leaf;
+                System.arraycopy(slots, ix, newSlots, ix + 1, slots.length - ix);
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            Object slot = slots[ix];
+            Object newSlot;
+            if (slot instanceof Leaf existing) {
+                if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                    change.found = true;
+                    change.oldValue = existing.value;
+                    if (existing.value == leaf.value) {
+                        return this;
+                    }
+                    newSlot = leaf;
+                } else {
+                    newSlot = merge(existing, existing.hash, leaf, shift + BITS);
+                }
+            } else {
+                Node child = (Node) slot;
+                newSlot = child.put(leaf, shift + BITS, change);
+                if (newSlot == child) {
+                    return this;
+                }
+            }
+            return new BitmapNode(bitmap, replaced(slots, ix, newSlot));
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int ix = index(bit);
+            Object slot = slots[ix];
+            if (slot instanceof Leaf leaf) {
+                if (leaf.hash != hash || !leaf.key.equals(key)) {
+                    return this;
+                }
+                change.found = true;
+                change.oldValue = leaf.value;
+                if (slots.length == 1) {
+                    return null;
+                }
+                Object[] newSlots = new Object[slots.length - 1];
+                System.arraycopy(slots, 0, newSlots, 0, ix);
+                System.arraycopy(slots, ix + 1, newSlots, ix, slots.length - ix - 1);
+                return new BitmapNode(bitmap & ~bit, newSlots);
+            }
+            Node child = (Node) slot;
+            Node newChild = child.remove(key, hash, shift + BITS, change);
+            if (newChild == child) {
+                return this;
+            }
+            if (newChild == null) {
+                // a child only becomes empty if it held a single leaf, which we would have inlined
+                throw new AssertionError("child node emptied by one removal");
+            }
+            Leaf onlyLeaf = newChild.onlyLeaf();
+            if (onlyLeaf != null && slots.length == 1) {
+                // pass the leaf up, so that our parent inlines it in our place
+                return new BitmapNode(bit, new Object[]{onlyLeaf});
+            }
+            return new BitmapNode(bitmap, replaced(slots, ix, onlyLeaf != null ? onlyLeaf : newChild));
+        }
+    }
+
+    /** A node holding leaves whose keys have exactly the same hash. */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(int hash, Object[] leaves) {
+            super(leaves);
+            this.hash = hash;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+            for (Object slot : slots) {
+                Leaf leaf = (Leaf) slot;
+                if (leaf.key.equals(key)) {
+                    return leaf;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift, Change change) {
+            if (leaf.hash != hash) {
+                // the new key only shares a prefix of our hash
+                return merge(this, hash, leaf, shift);
+            }
+            for (int ix = 0; ix < slots.length; ix++) {
+                Leaf existing = (Leaf) slots[ix];
+                if (existing.key.equals(leaf.key)) {
+                    change.found = true;
+                    change.oldValue = existing.value;
+                    if (existing.value == leaf.value) {
+                        return this;
+                    }
+                    return new CollisionNode(hash, replaced(slots, ix, leaf));
+                }
+            }
+            Object[] newSlots = Arrays.copyOf(slots, slots.length + 1);
+            newSlots[slots.length] = leaf;
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                return this;
+            }
+            for (int ix = 0; ix < slots.length; ix++) {
+                Leaf leaf = (Leaf) slots[ix];
+                if (leaf.key.equals(key)) {
+                    change.found = true;
+                    change.oldValue = leaf.value;
+                    Object[] newSlots = new Object[slots.length - 1];
+                    System.arraycopy(slots, 0, newSlots, 0, ix);
+                    System.arraycopy(slots, ix + 1, newSlots, ix, slots.length - ix - 1);
+                    return new CollisionNode(hash, newSlots);
+                }
+            }
+            return this;
+        }
+    }
+
+    /** Returns the bitmap bit for HASH at the level that consumes bits from SHIFT up. */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & FRAGMENT_MASK);
+    }
+
+    /**
+     * Returns a node at the level SHIFT holding LEAF and EXISTING, which is
+     * a leaf or a collision node whose keys all have hash EXISTING_HASH.
+     */
+    private static Node merge(Object existing, int existingHash, Leaf leaf, int shift) {
+        if (existingHash == leaf.hash) {
+            // only reached with two leaves, since a collision node handles its own hash
+            return new CollisionNode(leaf.hash, new Object[]{existing, leaf});
+        }
+        int existingFragment = (existingHash >>> shift) & FRAGMENT_MASK;
+        int fragment = (leaf.hash >>> shift) & FRAGMENT_MASK;
+        if (existingFragment == fragment) {
+            return new BitmapNode(1 << fragment, new Object[]{merge(existing, existingHash, leaf, shift + BITS)});
+        }
+        Object[] slots = existingFragment < fragment ? new Object[]{existing, leaf} : new Object[]{leaf, existing};
+        return new BitmapNode((1 << existingFragment) | (1 << fragment), slots);
+    }
+
+    /** Returns a copy of SLOTS with element IX replaced by SLOT. */
+    private static Object[] replaced(Object[] slots, int ix, Object slot) {
+        Object[] newSlots = slots.clone();
+        newSlots[ix] = slot;
+        return newSlots;
+    }
+
+    /** A depth-first iterator over the leaves under a root, with one slot index per level. */
+    private static final class KeyIterator<K> implements Iterator<K> {
+        private final Object[][] path = new Object[MAX_DEPTH][];
+        private final int[] ix = new int[MAX_DEPTH];
+        private int depth;
+        private Leaf next;
+
+        KeyIterator(Node root) {
+            path[0] = root.slots;
+            advance();
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                if (ix[depth] == path[depth].length) {
+                    depth--;
+                    continue;
+                }
+                Object slot = path[depth][ix[depth]++];
+                if (slot instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                depth++;
+                path[depth] = ((Node) slot).slots;
+                ix[depth] = 0;
+            }
+            next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) next.key;
+            advance();
+            return key;
+        }
+    }
+}
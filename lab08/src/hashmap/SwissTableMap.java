@@ -0,0 +1,278 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * An open-addressing Map61B implementation in the style of Abseil's Swiss
+ * tables, which probes eight slots at a time.
+ * <p>
+ * Next to the key, value and hash arrays, every slot has a control byte:
+ * EMPTY, DELETED, or for a full slot the low 7 bits of its key's hash (the
+ * fingerprint). The slots are split into groups of eight, and the eight
+ * control bytes of a group are packed into one long. A lookup starts at the
+ * group chosen by the high bits of the hash and compares its fingerprint
+ * against all eight control bytes with a few word-wide arithmetic and
+ * bitwise operations (SWAR, SIMD within a register). Only slots whose
+ * control byte matches, about one in 128 of the full ones, are checked
+ * against the key, so a miss usually reads nothing but one long for each
+ * group it probes. The probe stops at the first group with an EMPTY slot,
+ * and otherwise moves on to the next group by triangular probing, which
+ * visits every group of a power-of-two table.
+ * <p>
+ * Removal leaves a DELETED marker only if the slot's group has never been
+ * full, since otherwise a probe for some other key may have passed through
+ * it. The table holds at most 7/8 of its capacity in keys and markers
+ * combined; past that it is rebuilt, in place of the markers if there are
+ * many of them and at twice the size otherwise.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon remove().
+ */
+public class SwissTableMap<K, V> implements Map61B<K, V> {
+
+    /** Slots per group, one control byte each in a long. */
+    private static final int GROUP = 8;
+    private static final int EMPTY = 0x80;
+    private static final int DELETED = 0xFE;
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+    private static final long ALL_EMPTY = EMPTY * LSBS;
+
+    /* Instance Variables */
+    private long[] ctrl;
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int groupMask;
+    private int itemNum;
+    /** Number of keys that can still be added before all but 1/8 of the slots are in use. */
+    private int growthLeft;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public SwissTableMap() {
+        this(16);
+    }
+
+    /**
+     * SwissTableMap constructor that creates a table of at least
+     * initialCapacity slots, rounded up to a power of two.
+     *
+     * @param initialCapacity initial number of slots
+     */
+    public SwissTableMap(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        this.initialCapacity = OpenAddressingMap.tableSizeFor(Math.max(initialCapacity, GROUP));
+        createTable(this.initialCapacity);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int hash = OpenAddressingMap.spread(key.hashCode());
+        int ix = find(key, hash);
+        if (ix >= 0) {
+            values[ix] = value;
+            return;
+        }
+        if (growthLeft == 0) {
+            // rebuild at the same size if that would free at least half the headroom
+            rebuild(itemNum < maxLoad(keys.length) / 2 ? keys.length : keys.length * 2);
+        }
+        ix = findInsertSlot(hash);
+        if (controlByte(ix) == EMPTY) {
+            growthLeft--;
+        }
+        setControlByte(ix, hash & 0x7F);
+        keys[ix] = key;
+        values[ix] = value;
+        hashes[ix] = hash;
+        itemNum++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int ix = find(key, OpenAddressingMap.spread(key.hashCode()));
+        return ix < 0 ? null : (V) values[ix];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return find(key, OpenAddressingMap.spread(key.hashCode())) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return itemNum;
+    }
+
+    @Override
+    public void clear() {
+        createTable(initialCapacity);
+        itemNum = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int ix = find(key, OpenAddressingMap.spread(key.hashCode()));
+        if (ix < 0) {
+            return null;
+        }
+        V old = (V) values[ix];
+        keys[ix] = null;
+        values[ix] = null;
+        if (matchEmpty(ctrl[ix / GROUP]) != 0) {
+            // probes stop at this group, so none can have passed through it
+            setControlByte(ix, EMPTY);
+            growthLeft++;
+        } else {
+            setControlByte(ix, DELETED);
+        }
+        itemNum--;
+        return old;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator();
+    }
+
+    /** Returns the slot holding KEY, or -1 if KEY is not present. */
+    private int find(K key, int hash) {
+        long pattern = (hash & 0x7F) * LSBS;
+        int group = (hash >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            long word = ctrl[group];
+            for (long m = matchByte(word, pattern); m != 0; m &= m - 1) {
+                int ix = group * GROUP + (Long.numberOfTrailingZeros(m) >>> 3);
+                if (hashes[ix] == hash && key.equals(keys[ix])) {
+                    return ix;
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /** Returns the first EMPTY or DELETED slot on the probe sequence of HASH. */
+    private int findInsertSlot(int hash) {
+        int group = (hash >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            long m = matchEmptyOrDeleted(ctrl[group]);
+            if (m != 0) {
+                return group * GROUP + (Long.numberOfTrailingZeros(m) >>> 3);
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /*
+     * Each of the following returns a word with the high bit set in every
+     * byte of WORD that matches, and no other bits set. matchByte() can also
+     * report a byte just above a true match, which find() rules out by
+     * comparing hashes.
+     */
+
+    /** Matches the bytes of WORD that equal the byte repeated in PATTERN. */
+    private static long matchByte(long word, long pattern) {
+        long x = word ^ pattern;
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /** Matches EMPTY, the only control byte with its high bit set and bit 1 clear. */
+    private static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSBS;
+    }
+
+    /** Matches EMPTY and DELETED, the only control bytes with their high bit set and bit 0 clear. */
+    private static long matchEmptyOrDeleted(long word) {
+        return word & ~(word << 7) & MSBS;
+    }
+
+    private int controlByte(int ix) {
+        return (int) (ctrl[ix / GROUP] >>> (ix % GROUP * 8)) & 0xFF;
+    }
+
+    private void setControlByte(int ix, int b) {
+        int shift = ix % GROUP * 8;
+        ctrl[ix / GROUP] = ctrl[ix / GROUP] & ~(0xFFL << shift) | (long) b << shift;
+    }
+
+    /** Moves every key into a new table of NEWCAPACITY slots, dropping DELETED markers. */
+    private void rebuild(int newCapacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        long[] oldCtrl = ctrl;
+        createTable(newCapacity);
+        for (int ix = 0; ix < oldKeys.length; ix++) {
+            if ((oldCtrl[ix / GROUP] >>> (ix % GROUP * 8) & 0x80) == 0) {
+                int newIx = findInsertSlot(oldHashes[ix]);
+                setControlByte(newIx, oldHashes[ix] & 0x7F);
+                keys[newIx] = oldKeys[ix];
+                values[newIx] = oldValues[ix];
+                hashes[newIx] = oldHashes[ix];
+                growthLeft--;
+            }
+        }
+    }
+
+    private void createTable(int tableSize) {
+        ctrl = new long[tableSize / GROUP];
+        Arrays.fill(ctrl, ALL_EMPTY);
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        groupMask = tableSize / GROUP - 1;
+        growthLeft = maxLoad(tableSize);
+    }
+
+    /** Returns the most slots that may be full or DELETED, 7/8 of TABLESIZE. */
+    private static int maxLoad(int tableSize) {
+        return tableSize - tableSize / 8;
+    }
+
+    /** An iterator that walks the slots in order, skipping those that aren't full. */
+    private class KeyIterator implements Iterator<K> {
+        private int ix = advance(0);
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ix < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K ret = (K) keys[ix];
+            ix = advance(ix + 1);
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/**
+ * JMH comparison of MyHashMap's indexing paths with the lookup path it had
+ * before hashes were cached.
+ * <p>
+ * mask is a MyHashMap with a power-of-two capacity, which indexes buckets
+ * with a mask. floorMod is a MyHashMap with any other capacity, which uses
+ * Math.floorMod. Both spread and cache each key's hash, and skip equals()
+ * for nodes whose hash differs. baseline is BaselineMap, a copy of the
+ * original lookup path: it calls hashCode() on every get, put and resize,
+ * indexes with floorMod, and calls equals() on every node of the bucket.
+ * <p>
+ * Needs jmh-core and jmh-generator-annprocess on the classpath. Run main(),
+ * or the benchmarks jar built from this package.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class HashIndexBenchmark {
+
+    /** mask: capacity 16. floorMod: capacity 15. baseline: BaselineMap. */
+    @Param({"mask", "floorMod", "baseline"})
+    public String path;
+
+    /** Longer keys make each hashCode() and equals() call more expensive. */
+    @Param({"8", "64"})
+    public int keyLength;
+
+    @Param({"100000"})
+    public int size;
+
+    private Map61B<String, Integer> map;
+    private String[] hits;
+    private String[] misses;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(61);
+        map = newMap();
+        hits = new String[size];
+        misses = new String[size];
+        for (int i = 0; i < size; i++) {
+            hits[i] = randomString(r, keyLength);
+            misses[i] = randomString(r, keyLength);
+            map.put(hits[i], i);
+        }
+    }
+
+    @Benchmark
+    public Integer getHit() {
+        next = (next + 1) % size;
+        return map.get(hits[next]);
+    }
+
+    @Benchmark
+    public Integer getMiss() {
+        next = (next + 1) % size;
+        return map.get(misses[next]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public void build(Blackhole bh) {
+        Map61B<String, Integer> m = newMap();
+        for (int i = 0; i < size; i++) {
+            m.put(hits[i], i);
+        }
+        bh.consume(m);
+    }
+
+    private Map61B<String, Integer> newMap() {
+        return switch (path) {
+            case "mask" -> new MyHashMap<>(16);
+            case "floorMod" -> new MyHashMap<>(15);
+            case "baseline" -> new BaselineMap<>(16);
+            default -> throw new IllegalArgumentException("Unknown path " + path);
+        };
+    }
+
+    private static String randomString(Random r, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + r.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HashIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    /**
+     * MyHashMap before hashes were cached: no spreading, floorMod indexing,
+     * and equals() on every node of the bucket, for every operation.
+     */
+    static class BaselineMap<K, V> implements Map61B<K, V> {
+        private static class Node<K, V> {
+            final K key;
+            V value;
+
+            Node(K key, V value) {
+                this.key = key;
+                this.value = value;
+            }
+        }
+
+        private List<Node<K, V>>[] buckets;
+        private int itemNum;
+        private final int initialCapacity;
+
+        BaselineMap(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            buckets = createTable(initialCapacity);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            if ((double) itemNum / buckets.length > 0.75) {
+                resize();
+            }
+            List<Node<K, V>> bucket = buckets[Math.floorMod(key.hashCode(), buckets.length)];
+            for (Node<K, V> node : bucket) {
+                if (node.key.equals(key)) {
+                    node.value = value;
+                    return;
+                }
+            }
+            bucket.add(new Node<>(key, value));
+            itemNum++;
+        }
+
+        @Override
+        public V get(K key) {
+            Node<K, V> node = find(key);
+            return node == null ? null : node.value;
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return find(key) != null;
+        }
+
+        private Node<K, V> find(K key) {
+            for (Node<K, V> node : buckets[Math.floorMod(key.hashCode(), buckets.length)]) {
+                if (node.key.equals(key)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return itemNum;
+        }
+
+        @Override
+        public void clear() {
+            buckets = createTable(initialCapacity);
+            itemNum = 0;
+        }
+
+        @Override
+        public Set<K> keySet() {
+            Set<K> keys = new HashSet<>();
+            for (K key : this) {
+                keys.add(key);
+            }
+            return keys;
+        }
+
+        @Override
+        public V remove(K key) {
+            Iterator<Node<K, V>> it = buckets[Math.floorMod(key.hashCode(), buckets.length)].iterator();
+            while (it.hasNext()) {
+                Node<K, V> node = it.next();
+                if (node.key.equals(key)) {
+                    it.remove();
+                    itemNum--;
+                    return node.value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return Arrays.stream(buckets).flatMap(List::stream).map(node -> node.key).iterator();
+        }
+
+        private void resize() {
+            List<Node<K, V>>[] newBuckets = createTable(buckets.length * 2);
+            for (List<Node<K, V>> bucket : buckets) {
+                for (Node<K, V> node : bucket) {
+                    newBuckets[Math.floorMod(node.key.hashCode(), newBuckets.length)].add(node);
+                }
+            }
+            buckets = newBuckets;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <K, V> List<Node<K, V>>[] createTable(int size) {
+            List<Node<K, V>>[] table = new List[size];
+            for (int ix = 0; ix < size; ix++) {
+                table[ix] = new ArrayList<>();
+            }
+            return table;
+        }
+    }
+}
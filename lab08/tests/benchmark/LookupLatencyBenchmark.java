@@ -0,0 +1,114 @@
+package benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashmap.Map61B;
+
+/**
+ * JMH benchmarks of the distribution of single-lookup times, rather than
+ * their average, to compare the tail of chained buckets against the fixed
+ * number of probes in CuckooHashMap. Each lookup is timed on its own in
+ * SampleTime mode, and JMH reports percentiles including p0.99 for each.
+ * Misses are measured separately, since a miss in a chained map walks the
+ * whole bucket.
+ * <p>
+ * Random and sequential keys leave chains short. main() also runs strided
+ * keys, whose hash codes are multiples of 8, at 1000 keys: a chained table
+ * of 2048 buckets then puts them in 256 buckets of up to 8 keys, which is
+ * below the treeify threshold, while CuckooHashMap and the probing maps mix
+ * the hash before indexing. Strided keys are one character long, so there
+ * are at most 8192 of them and they only run at the small size.
+ * <p>
+ * Sampled times include the cost of reading the clock, tens of
+ * nanoseconds, so compare maps against each other rather than against
+ * zero. Run with
+ * <pre>
+ *     java -cp ... benchmark.LookupLatencyBenchmark [resultPrefix]
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LookupLatencyBenchmark {
+
+    /** A map of SIZE keys, lookups that hit and lookups that miss, in random order. */
+    @State(Scope.Thread)
+    public static class Filled {
+        @Param({"MyHashMap-LinkedList", "MyHashMap-ArrayList", "OpenAddressingMap", "CuckooHashMap",
+            "SwissTableMap"})
+        public String mapType;
+
+        /** random, sequential, or strided: see Map61BBenchmark.keys(). */
+        @Param({"random", "sequential"})
+        public String distribution;
+
+        @Param({"1000", "1000000"})
+        public int size;
+
+        Map61B<String, Integer> map;
+        String[] hits;
+        String[] misses;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            String[] keys = Map61BBenchmark.keys(distribution, 2 * size);
+            Collections.shuffle(Arrays.asList(keys), new Random(61));
+            hits = Arrays.copyOfRange(keys, 0, size);
+            misses = Arrays.copyOfRange(keys, size, 2 * size);
+            map = Map61BBenchmark.createMap(mapType);
+            for (int i = 0; i < size; i++) {
+                map.put(hits[i], i);
+            }
+        }
+
+        int nextIndex() {
+            next = next + 1 == size ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Integer getHit(Filled state) {
+        return state.map.get(state.hits[state.nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean containsMiss(Filled state) {
+        return state.map.containsKey(state.misses[state.nextIndex()]);
+    }
+
+    /**
+     * Runs every benchmark and writes JSON results to PREFIX.json and
+     * PREFIX-strided.json, where PREFIX is ARGS[0] or lookup-latency.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String prefix = args.length > 0 ? args[0] : "lookup-latency";
+        String name = LookupLatencyBenchmark.class.getName();
+
+        Options options = new OptionsBuilder()
+                .include(name + "\\.")
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + ".json")
+                .build();
+        Options strided = new OptionsBuilder()
+                .include(name + "\\.")
+                .param("distribution", "strided")
+                .param("size", "1000")
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-strided.json")
+                .build();
+        new Runner(options).run();
+        new Runner(strided).run();
+    }
+}
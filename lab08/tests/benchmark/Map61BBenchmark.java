@@ -0,0 +1,295 @@
+package benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashmap.*;
+import speed.StringUtils;
+
+import static hashmap.MyHashMapFactory.createBucketedMap;
+import static hashmap.MyHashMapFactory.createCuckooMap;
+import static hashmap.MyHashMapFactory.createOpenAddressingMap;
+import static hashmap.MyHashMapFactory.createSwissTableMap;
+
+/**
+ * JMH benchmarks for every Map61B in the hashmap package, with
+ * java.util.HashMap as a baseline. This replaces eyeballing the
+ * interactive speed tests: each measurement is warmed up, repeated
+ * in separate JVM forks, and reported with an error bound.
+ * <p>
+ * Covers put (building a map of the given size), get hits, get misses,
+ * remove and full iteration, for random, sequential and colliding String
+ * keys. main() runs the whole suite unattended and writes JSON results,
+ * so it can be used from a nightly job:
+ * <pre>
+ *     java -cp ... benchmark.Map61BBenchmark [resultPrefix]
+ * </pre>
+ * Colliding keys make every map without treeified buckets take time
+ * quadratic in the size to build, so main() runs the colliding distribution
+ * for those maps (UNTREEIFIED_MAPS) at 1000 and 10000 keys only.
+ * <p>
+ * Needs jmh-core and jmh-generator-annprocess on the classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class Map61BBenchmark {
+
+    /** Maps whose operations are O(N), which are only run at small sizes. */
+    static final String[] LINEAR_MAPS = {"ULLMap"};
+
+    /** Maps that turn long buckets into trees, so colliding keys cost O(log N) each. */
+    static final String[] HASHED_MAPS = {
+        "MyHashMap-ArrayList", "MyHashMap-LinkedList", "MyHashMap-HashSet",
+        "MyHashMap-Stack", "MyHashMap-ArrayDeque", "MyHashMap-Seeded", "HashMap",
+    };
+
+    /** Maps that search colliding keys linearly, which are only run with few colliding keys. */
+    static final String[] UNTREEIFIED_MAPS = {
+        "OpenAddressingMap", "CuckooHashMap", "SwissTableMap", "ConcurrentMyHashMap",
+    };
+
+    /** A map of SIZE keys drawn from DISTRIBUTION, plus keys that are not in it. */
+    @State(Scope.Thread)
+    public static class Filled {
+        @Param({"MyHashMap-ArrayList"})
+        public String mapType;
+
+        /** random: random strings of length 10. sequential: strings in
+         * increasing order. colliding: strings that all share one hashCode(). */
+        @Param({"random", "sequential", "colliding"})
+        public String distribution;
+
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        Map61B<String, Integer> map;
+        String[] hits;
+        String[] misses;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            String[] keys = keys(distribution, 2 * size);
+            // shuffle so that present and absent keys are interleaved in the key space
+            Collections.shuffle(Arrays.asList(keys), new Random(61));
+            hits = Arrays.copyOfRange(keys, 0, size);
+            misses = Arrays.copyOfRange(keys, size, 2 * size);
+            map = createMap(mapType);
+            for (int i = 0; i < size; i++) {
+                map.put(hits[i], i);
+            }
+        }
+
+        /** Returns the next index into hits or misses, cycling through them. */
+        int nextIndex() {
+            next = next + 1 == size ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map61B<String, Integer> put(Filled state) {
+        Map61B<String, Integer> m = createMap(state.mapType);
+        String[] hits = state.hits;
+        for (int i = 0; i < hits.length; i++) {
+            m.put(hits[i], i);
+        }
+        return m;
+    }
+
+    @Benchmark
+    public Integer getHit(Filled state) {
+        return state.map.get(state.hits[state.nextIndex()]);
+    }
+
+    @Benchmark
+    public Integer getMiss(Filled state) {
+        return state.map.get(state.misses[state.nextIndex()]);
+    }
+
+    /** Removes a key and puts it back, so the map keeps its size. */
+    @Benchmark
+    public Integer removeAndPut(Filled state) {
+        String key = state.hits[state.nextIndex()];
+        Integer value = state.map.remove(key);
+        state.map.put(key, value);
+        return value;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Filled state, Blackhole bh) {
+        for (String key : state.map) {
+            bh.consume(key);
+        }
+    }
+
+    /** Returns an empty map of the named type. */
+    static Map61B<String, Integer> createMap(String mapType) {
+        return switch (mapType) {
+            case "ULLMap" -> new ULLMap<>();
+            case "MyHashMap-ArrayList" -> createBucketedMap(ArrayList.class);
+            case "MyHashMap-LinkedList" -> createBucketedMap(LinkedList.class);
+            case "MyHashMap-HashSet" -> createBucketedMap(HashSet.class);
+            case "MyHashMap-Stack" -> createBucketedMap(Stack.class);
+            case "MyHashMap-ArrayDeque" -> createBucketedMap(ArrayDeque.class);
+            case "MyHashMap-Seeded" -> new MyHashMap<>(HashStrategy.seeded());
+            case "OpenAddressingMap" -> createOpenAddressingMap();
+            case "CuckooHashMap" -> createCuckooMap();
+            case "SwissTableMap" -> createSwissTableMap();
+            case "ConcurrentMyHashMap" -> new ConcurrentMyHashMap<>();
+            case "HashMap" -> new HashMapAdapter<>();
+            default -> throw new IllegalArgumentException("Unknown map type " + mapType);
+        };
+    }
+
+    /**
+     * Returns N distinct keys from the named distribution: those of Filled,
+     * or strided, which LookupLatencyBenchmark uses for long chains. Strided
+     * keys have hash codes that are multiples of 8, and N must be at most 8192.
+     */
+    static String[] keys(String distribution, int N) {
+        String[] keys = new String[N];
+        switch (distribution) {
+            case "random" -> {
+                StringUtils.setSeed(61);
+                Set<String> seen = new HashSet<>();
+                for (int i = 0; i < N; i++) {
+                    String s;
+                    do {
+                        s = StringUtils.randomString(10);
+                    } while (!seen.add(s));
+                    keys[i] = s;
+                }
+            }
+            case "sequential" -> {
+                String s = "cat";
+                for (int i = 0; i < N; i++) {
+                    s = StringUtils.nextString(s);
+                    keys[i] = s;
+                }
+            }
+            case "colliding" -> {
+                int blocks = Math.max(1, 32 - Integer.numberOfLeadingZeros(N - 1));
+                for (int i = 0; i < N; i++) {
+                    keys[i] = StringUtils.collidingString(i, blocks);
+                }
+            }
+            case "strided" -> {
+                // one-char strings hash to their char, so all hash codes are
+                // multiples of 8 and share their low bits
+                if (8 * N > Character.MAX_VALUE + 1) {
+                    throw new IllegalArgumentException("Too many strided keys: " + N);
+                }
+                for (int i = 0; i < N; i++) {
+                    keys[i] = String.valueOf((char) (8 * i));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown distribution " + distribution);
+        }
+        return keys;
+    }
+
+    /** java.util.HashMap behind the Map61B interface, as a baseline. */
+    static class HashMapAdapter<K, V> implements Map61B<K, V> {
+        private final HashMap<K, V> map = new HashMap<>();
+
+        @Override
+        public void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return map.keySet();
+        }
+
+        @Override
+        public V remove(K key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return map.keySet().iterator();
+        }
+    }
+
+    /**
+     * Runs every benchmark for every map and writes JSON results to
+     * PREFIX-linear.json, PREFIX-hashed.json, PREFIX-untreeified.json and
+     * PREFIX-colliding.json, where PREFIX is ARGS[0] or map61b-benchmark.
+     * O(N) maps only run at the smallest size, and skip the remove benchmark
+     * since ULLMap doesn't support remove(). UNTREEIFIED_MAPS run colliding
+     * keys at 1000 and 10000 keys only.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String prefix = args.length > 0 ? args[0] : "map61b-benchmark";
+        String name = Map61BBenchmark.class.getName();
+
+        Options linear = new OptionsBuilder()
+                .include(name + "\\.(put|getHit|getMiss|iterate)$")
+                .param("mapType", LINEAR_MAPS)
+                .param("size", "1000")
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-linear.json")
+                .build();
+        Options hashed = new OptionsBuilder()
+                .include(name + "\\.")
+                .param("mapType", HASHED_MAPS)
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-hashed.json")
+                .build();
+        Options untreeified = new OptionsBuilder()
+                .include(name + "\\.")
+                .param("mapType", UNTREEIFIED_MAPS)
+                .param("distribution", "random", "sequential")
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-untreeified.json")
+                .build();
+        Options colliding = new OptionsBuilder()
+                .include(name + "\\.")
+                .param("mapType", UNTREEIFIED_MAPS)
+                .param("distribution", "colliding")
+                .param("size", "1000", "10000")
+                .resultFormat(ResultFormatType.JSON)
+                .result(prefix + "-colliding.json")
+                .build();
+        new Runner(linear).run();
+        new Runner(hashed).run();
+        new Runner(untreeified).run();
+        new Runner(colliding).run();
+    }
+}
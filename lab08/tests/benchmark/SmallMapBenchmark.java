@@ -0,0 +1,98 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashmap.AdaptiveMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/**
+ * JMH benchmarks of maps with only a handful of keys, where the cost of
+ * creating the map matters as much as the cost of using it: AdaptiveMap,
+ * whose small maps are an inline array, against MyHashMap and
+ * java.util.HashMap. createAndFill builds a map of SIZE keys and reads
+ * each back once, as code that makes millions of short-lived maps would;
+ * getHit looks keys up in a map that already exists. Run with
+ * <pre>
+ *     java -cp ... benchmark.SmallMapBenchmark [resultFile]
+ * </pre>
+ * and add -prof gc on the JMH command line to see bytes allocated per map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SmallMapBenchmark {
+
+    @State(Scope.Thread)
+    public static class Small {
+        @Param({"AdaptiveMap", "MyHashMap", "HashMap"})
+        public String mapType;
+
+        @Param({"0", "1", "4", "8", "16"})
+        public int size;
+
+        String[] keys;
+        Map61B<String, Integer> map;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            keys = Map61BBenchmark.keys("random", Math.max(size, 1));
+            map = createMap(mapType);
+            for (int i = 0; i < size; i++) {
+                map.put(keys[i], i);
+            }
+        }
+
+        String nextKey() {
+            next = next + 1 >= keys.length ? 0 : next + 1;
+            return keys[next];
+        }
+    }
+
+    @Benchmark
+    public Map61B<String, Integer> createAndFill(Small state) {
+        Map61B<String, Integer> m = createMap(state.mapType);
+        String[] keys = state.keys;
+        for (int i = 0; i < state.size; i++) {
+            m.put(keys[i], i);
+        }
+        for (int i = 0; i < state.size; i++) {
+            m.get(keys[i]);
+        }
+        return m;
+    }
+
+    @Benchmark
+    public Integer getHit(Small state) {
+        return state.map.get(state.nextKey());
+    }
+
+    static Map61B<String, Integer> createMap(String mapType) {
+        return switch (mapType) {
+            case "AdaptiveMap" -> new AdaptiveMap<>();
+            case "MyHashMap" -> new MyHashMap<>();
+            case "HashMap" -> new Map61BBenchmark.HashMapAdapter<>();
+            default -> throw new IllegalArgumentException("Unknown map type " + mapType);
+        };
+    }
+
+    /** Runs every benchmark and writes JSON results to ARGS[0], or small-map-benchmark.json. */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SmallMapBenchmark.class.getName() + "\\.")
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "small-map-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
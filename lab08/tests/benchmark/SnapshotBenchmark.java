@@ -0,0 +1,126 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashmap.MyHashMap;
+import hashmap.PersistentHashMap;
+
+/**
+ * JMH benchmarks of what it costs to give readers a consistent snapshot of
+ * a map: PersistentHashMap, whose snapshots are O(1) and whose writes copy
+ * a path of the trie, against MyHashMap, whose writes are in place but
+ * whose snapshots copy every entry.
+ * <p>
+ * get and put measure the price PersistentHashMap pays on every operation;
+ * snapshot measures what MyHashMap pays each time a reader needs one; and
+ * putThenSnapshot is a writer that publishes a snapshot after every write.
+ * Run with
+ * <pre>
+ *     java -cp ... benchmark.SnapshotBenchmark [resultFile]
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SnapshotBenchmark {
+
+    /** A PersistentHashMap and a MyHashMap holding the same SIZE random keys. */
+    @State(Scope.Thread)
+    public static class Filled {
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        PersistentHashMap<String, Integer> persistent;
+        MyHashMap<String, Integer> hashMap;
+        String[] keys;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            keys = Map61BBenchmark.keys("random", size);
+            persistent = new PersistentHashMap<>();
+            hashMap = MyHashMap.withExpectedSize(size);
+            for (int i = 0; i < size; i++) {
+                persistent.put(keys[i], i);
+                hashMap.put(keys[i], i);
+            }
+        }
+
+        /** Returns the next key, cycling through them. */
+        String nextKey() {
+            next = next + 1 == size ? 0 : next + 1;
+            return keys[next];
+        }
+    }
+
+    @Benchmark
+    public Integer getPersistent(Filled state) {
+        return state.persistent.get(state.nextKey());
+    }
+
+    @Benchmark
+    public Integer getMyHashMap(Filled state) {
+        return state.hashMap.get(state.nextKey());
+    }
+
+    /** Replaces an existing key's value, so the map keeps its size. */
+    @Benchmark
+    public void putPersistent(Filled state) {
+        state.persistent.put(state.nextKey(), state.next);
+    }
+
+    @Benchmark
+    public void putMyHashMap(Filled state) {
+        state.hashMap.put(state.nextKey(), state.next);
+    }
+
+    @Benchmark
+    public PersistentHashMap<String, Integer> snapshotPersistent(Filled state) {
+        return state.persistent.snapshot();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MyHashMap<String, Integer> snapshotCopy(Filled state) {
+        return copy(state.hashMap);
+    }
+
+    @Benchmark
+    public PersistentHashMap<String, Integer> putThenSnapshotPersistent(Filled state) {
+        state.persistent.put(state.nextKey(), state.next);
+        return state.persistent.snapshot();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MyHashMap<String, Integer> putThenSnapshotCopy(Filled state) {
+        state.hashMap.put(state.nextKey(), state.next);
+        return copy(state.hashMap);
+    }
+
+    /** Returns a full copy of MAP, as a reader would need without persistence. */
+    private static MyHashMap<String, Integer> copy(MyHashMap<String, Integer> map) {
+        MyHashMap<String, Integer> copy = MyHashMap.withExpectedSize(map.size());
+        copy.putAll(map);
+        return copy;
+    }
+
+    /** Runs every benchmark and writes JSON results to ARGS[0], or snapshot-benchmark.json. */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SnapshotBenchmark.class.getName() + "\\.")
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "snapshot-benchmark.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,90 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Tests of AdaptiveMap beyond TestMap61BImplementations: the switch from
+ * inline keys to a MyHashMap.
+ */
+public class TestAdaptiveMap {
+
+    @DisplayName("promotion to a MyHashMap")
+    @Test
+    public void testPromotion() {
+        AdaptiveMap<Integer, Integer> map = new AdaptiveMap<>();
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < AdaptiveMap.THRESHOLD; i++) {
+            map.put(100 - i, i);
+            order.add(100 - i);
+        }
+        assertThat(map.isHashed()).isFalse();
+        List<Integer> iterated = new ArrayList<>();
+        map.forEach(iterated::add);
+        assertThat(iterated).containsExactlyElementsIn(order).inOrder();
+
+        // replacing a value is not growth
+        map.put(100, -1);
+        assertThat(map.isHashed()).isFalse();
+        map.put(0, 0);
+        assertThat(map.isHashed()).isTrue();
+        assertThat(map.size()).isEqualTo(AdaptiveMap.THRESHOLD + 1);
+        assertThat(map.get(100)).isEqualTo(-1);
+        for (int i = 1; i < AdaptiveMap.THRESHOLD; i++) {
+            assertThat(map.get(100 - i)).isEqualTo(i);
+        }
+
+        map.clear();
+        assertThat(map.isHashed()).isFalse();
+        assertThat(map.size()).isEqualTo(0);
+    }
+
+    /** Mixes puts and removes on a key space that straddles the threshold. */
+    @DisplayName("random put/remove")
+    @Test
+    public void testRandomPutRemove() {
+        Random r = new Random(61);
+        for (int trial = 0; trial < 1000; trial++) {
+            AdaptiveMap<Integer, Integer> map = new AdaptiveMap<>();
+            Map<Integer, Integer> ref = new HashMap<>();
+            for (int i = 0; i < 50; i++) {
+                int key = r.nextInt(12);
+                switch (r.nextInt(3)) {
+                    case 0 -> assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+                    case 1 -> assertThat(map.merge(key, 1, Integer::sum)).isEqualTo(ref.merge(key, 1, Integer::sum));
+                    default -> {
+                        map.put(key, i);
+                        ref.put(key, i);
+                    }
+                }
+                assertThat(map.size()).isEqualTo(ref.size());
+            }
+            assertThat(map.keySet()).containsExactlyElementsIn(ref.keySet());
+        }
+    }
+
+    @Test
+    public void testIteratorFailFast() {
+        AdaptiveMap<String, Integer> map = new AdaptiveMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        Iterator<String> it = map.iterator();
+        it.next();
+        map.put("a", 3);
+        it.next();
+        Iterator<String> it2 = map.iterator();
+        map.put("c", 3);
+        assertThrows(ConcurrentModificationException.class, it2::next);
+    }
+}
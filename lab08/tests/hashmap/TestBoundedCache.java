@@ -0,0 +1,182 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+/** Tests of BoundedCache under each eviction policy. */
+public class TestBoundedCache {
+
+    private static final BoundedCache.EvictionPolicy[] POLICIES = BoundedCache.EvictionPolicy.values();
+
+    @DisplayName("behaves like a map while under its maximum size")
+    @Test
+    public void testUnbounded() {
+        for (BoundedCache.EvictionPolicy policy : POLICIES) {
+            TestMyHashMap.sanityClearTest(new BoundedCache<>(1000, policy));
+            TestMyHashMap.sanityGetTest(new BoundedCache<>(1000, policy));
+            TestMyHashMap.sanitySizeTest(new BoundedCache<>(1000, policy));
+            TestMyHashMap.sanityPutTest(new BoundedCache<>(1000, policy));
+            TestMyHashMap.functionalityTest(new BoundedCache<>(1000, policy), new BoundedCache<>(1000, policy));
+        }
+    }
+
+    @DisplayName("never exceeds its maximum size, and its structures stay consistent")
+    @Test
+    public void testRandomOperations() {
+        for (BoundedCache.EvictionPolicy policy : POLICIES) {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, policy);
+            Map<Integer, Integer> ref = new HashMap<>();
+            Random r = new Random(61);
+            for (int i = 0; i < 100000; i++) {
+                int key = r.nextInt(500);
+                switch (r.nextInt(4)) {
+                    case 0 -> {
+                        cache.put(key, i);
+                        ref.put(key, i);
+                    }
+                    case 1 -> {
+                        Integer removed = cache.remove(key);
+                        Integer expected = ref.remove(key);
+                        if (removed != null) {
+                            assertThat(removed).isEqualTo(expected);
+                        }
+                    }
+                    default -> {
+                        Integer value = cache.get(key);
+                        // a cache may have evicted the key, but never returns a wrong value
+                        if (value != null) {
+                            assertThat(value).isEqualTo(ref.get(key));
+                        }
+                    }
+                }
+                assertThat(cache.size()).isAtMost(100);
+                assertThat(cache.weight()).isEqualTo(cache.size());
+            }
+            assertThat(cache.evictions()).isGreaterThan(0L);
+            assertThat(cache.hits() + cache.misses()).isGreaterThan(0L);
+        }
+    }
+
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(3, BoundedCache.EvictionPolicy.LRU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.put("d", 4);
+        assertThat(cache.containsKey("b")).isFalse();
+        assertThat(cache.containsKey("a")).isTrue();
+        cache.put("c", 30);
+        cache.put("e", 5);
+        assertThat(cache.containsKey("a")).isFalse();
+        assertThat(cache.get("c")).isEqualTo(30);
+        assertThat(cache.evictions()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLfuEvictsLeastFrequentlyUsed() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(3, BoundedCache.EvictionPolicy.LFU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.get("a");
+        cache.get("c");
+        // b has the lowest count
+        cache.put("d", 4);
+        assertThat(cache.containsKey("b")).isFalse();
+        // now d, used once, has the lowest count
+        cache.put("e", 5);
+        assertThat(cache.containsKey("d")).isFalse();
+        assertThat(cache.containsKey("a")).isTrue();
+        assertThat(cache.containsKey("c")).isTrue();
+    }
+
+    @DisplayName("TINY_LFU keeps frequently used keys through a scan")
+    @Test
+    public void testTinyLfuResistsScans() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, BoundedCache.EvictionPolicy.TINY_LFU);
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        // a long run of keys that are each used once
+        for (int key = 1000; key < 11000; key++) {
+            cache.put(key, key);
+        }
+        int kept = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.containsKey(key)) {
+                kept++;
+            }
+        }
+        assertThat(kept).isAtLeast(45);
+
+        BoundedCache<Integer, Integer> lru = new BoundedCache<>(100, BoundedCache.EvictionPolicy.LRU);
+        for (int key = 0; key < 50; key++) {
+            lru.put(key, key);
+        }
+        for (int key = 1000; key < 11000; key++) {
+            lru.put(key, key);
+        }
+        assertThat(lru.containsKey(0)).isFalse();
+    }
+
+    @Test
+    public void testWeigher() {
+        for (BoundedCache.EvictionPolicy policy : POLICIES) {
+            BoundedCache<String, String> cache = new BoundedCache<>(100, policy, (k, v) -> v.length());
+            cache.put("a", "x".repeat(40));
+            cache.put("b", "x".repeat(40));
+            assertThat(cache.weight()).isEqualTo(80);
+            // replacing a value reweighs it
+            cache.put("a", "x".repeat(10));
+            assertThat(cache.weight()).isEqualTo(50);
+            cache.put("c", "x".repeat(40));
+            assertThat(cache.size()).isEqualTo(3);
+            cache.put("d", "x".repeat(40));
+            assertThat(cache.weight()).isAtMost(100);
+            // too heavy to ever fit, and evicted without the others
+            Set<String> kept = new HashSet<>(cache.keySet());
+            long keptWeight = cache.weight();
+            cache.put("e", "x".repeat(101));
+            assertThat(cache.containsKey("e")).isFalse();
+            assertThat(cache.keySet()).containsExactlyElementsIn(kept);
+            assertThat(cache.weight()).isEqualTo(keptWeight);
+            // and so is a value that makes an entry too heavy
+            cache.put("a", "x".repeat(101));
+            assertThat(cache.containsKey("a")).isFalse();
+            assertThat(cache.size()).isEqualTo(kept.size() - (kept.contains("a") ? 1 : 0));
+        }
+    }
+
+    @Test
+    public void testCounters() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, BoundedCache.EvictionPolicy.LRU);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertThat(cache.hits()).isEqualTo(2);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.hitRatio()).isWithin(1e-9).of(2.0 / 3);
+        assertThrows(NullPointerException.class, () -> cache.put("c", null));
+        cache.clear();
+        assertThat(cache.weight()).isEqualTo(0);
+        cache.put("a", 1);
+        assertThat(cache.get("a")).isEqualTo(1);
+    }
+}
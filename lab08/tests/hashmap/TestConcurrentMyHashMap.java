@@ -0,0 +1,95 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests of ConcurrentMyHashMap beyond TestMap61BImplementations: concurrent
+ * writers and readers must never lose or invent mappings.
+ */
+public class TestConcurrentMyHashMap {
+
+    /**
+     * Writers insert and remove disjoint key ranges while readers look up keys
+     * that are never removed. Readers must always find them, even across resizes.
+     */
+    @DisplayName("concurrent writers and readers")
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        int writers = 4;
+        int perWriter = 50000;
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(-1 - i, i);
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> errors = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int base = w * perWriter;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = base; i < base + perWriter; i++) {
+                    map.put(i, i);
+                    if (i % 2 == 1) {
+                        map.remove(i - 1);
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                while (!done.get()) {
+                    for (int i = 0; i < 1000; i++) {
+                        if (!Integer.valueOf(i).equals(map.get(-1 - i))) {
+                            synchronized (errors) {
+                                errors.add(new AssertionError("lost key " + (-1 - i)));
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads.subList(0, writers)) {
+            t.join();
+        }
+        done.set(true);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(map.size()).isEqualTo(1000 + writers * perWriter / 2);
+        ConcurrentHashMap.KeySetView<Integer, Boolean> expected = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(-1 - i);
+        }
+        for (int i = 1; i < writers * perWriter; i += 2) {
+            expected.add(i);
+        }
+        assertThat(map.keySet()).containsExactlyElementsIn(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests of CuckooHashMap beyond TestMap61BImplementations: randomized
+ * tests that exercise evictions, the stash and rebuilds.
+ */
+public class TestCuckooHashMap {
+
+    /** Mixes puts and removes on a small key space, growing the table from its minimum size. */
+    @DisplayName("random put/remove")
+    @Test
+    public void testRandomPutRemove() {
+        CuckooHashMap<Integer, Integer> map = new CuckooHashMap<>(4);
+        Map<Integer, Integer> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 200000; i++) {
+            int key = r.nextInt(2000);
+            if (r.nextBoolean()) {
+                map.put(key, i);
+                ref.put(key, i);
+            } else {
+                assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+        }
+        for (int key = 0; key < 2000; key++) {
+            assertThat(map.get(key)).isEqualTo(ref.get(key));
+            assertThat(map.containsKey(key)).isEqualTo(ref.containsKey(key));
+        }
+        assertThat(map.keySet()).containsExactlyElementsIn(ref.keySet());
+    }
+
+    /**
+     * Fills a table close to its load factor, so that insertions need long
+     * eviction walks, and checks that nothing is lost along the way.
+     */
+    @DisplayName("high load factor")
+    @Test
+    public void testHighLoad() {
+        CuckooHashMap<Integer, Integer> map = new CuckooHashMap<>(1 << 16, 0.97);
+        for (int i = 0; i < (int) (0.97 * (1 << 16)); i++) {
+            map.put(i * 31, i);
+        }
+        for (int i = 0; i < (int) (0.97 * (1 << 16)); i++) {
+            assertThat(map.get(i * 31)).isEqualTo(i);
+        }
+    }
+
+    /**
+     * Keys with only a few distinct hash codes overflow the stash, which must
+     * then grow instead of rebuilding the table forever.
+     */
+    @DisplayName("colliding keys")
+    @Test
+    public void testCollidingKeys() {
+        for (int hashes : new int[]{1, 3, 50}) {
+            CuckooHashMap<TestMyHashMap.Collider, Integer> map = new CuckooHashMap<>();
+            Map<TestMyHashMap.Collider, Integer> ref = new HashMap<>();
+            Random r = new Random(61);
+            for (int i = 0; i < 20000; i++) {
+                TestMyHashMap.Collider key = new TestMyHashMap.Collider(r.nextInt(500), hashes);
+                if (r.nextInt(3) > 0) {
+                    map.put(key, i);
+                    ref.put(key, i);
+                } else {
+                    assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+                }
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+            for (TestMyHashMap.Collider key : ref.keySet()) {
+                assertThat(map.get(key)).isEqualTo(ref.get(key));
+            }
+            assertThat(map.keySet()).containsExactlyElementsIn(ref.keySet());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests of MyHashMap with a HashStrategy, including a hash flooding attack
+ * with Strings that share one hashCode(), with and without a seeded strategy.
+ */
+public class TestHashStrategy {
+
+    /** Returns 2^BLOCKS distinct Strings of "Aa" and "BB" blocks, which all have the same hashCode(). */
+    static String[] collidingStrings(int blocks) {
+        String[] keys = new String[1 << blocks];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int b = 0; b < blocks; b++) {
+                sb.append((i >>> b & 1) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = sb.toString();
+        }
+        return keys;
+    }
+
+    /** Returns the length of the longest bucket of MAP. */
+    static int longestBucket(MyHashMap<?, ?> map) {
+        map.enableStats();
+        int[] lengths = map.stats().bucketLengths();
+        return lengths.length - 1;
+    }
+
+    @DisplayName("colliding Strings share one bucket under hashCode()")
+    @Test
+    public void testFloodingAttack() {
+        String[] keys = collidingStrings(10);
+        assertThat(keys[0].hashCode()).isEqualTo(keys[keys.length - 1].hashCode());
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            b.put(keys[i], i);
+        }
+        assertThat(longestBucket(b)).isEqualTo(keys.length);
+    }
+
+    @DisplayName("colliding Strings spread out under a seeded strategy")
+    @Test
+    public void testSeededResistsFlooding() {
+        String[] keys = collidingStrings(10);
+        MyHashMap<String, Integer> b = new MyHashMap<>(HashStrategy.seeded());
+        for (int i = 0; i < keys.length; i++) {
+            b.put(keys[i], i);
+        }
+        // 1024 keys in 2048 buckets: a random hash almost never puts 10 in one
+        assertThat(longestBucket(b)).isLessThan(10);
+        for (int i = 0; i < keys.length; i++) {
+            assertThat(b.get(keys[i])).isEqualTo(i);
+        }
+        assertThat(b.get("AaAa")).isNull();
+    }
+
+    @DisplayName("seeded hashes depend on the key")
+    @Test
+    public void testSeededHashes() {
+        HashStrategy<Object> s = HashStrategy.seeded(1, 2);
+        assertThat(s.hash("hello")).isEqualTo(HashStrategy.seeded(1, 2).hash("hello"));
+        assertThat(s.hash("hello")).isNotEqualTo(HashStrategy.seeded(3, 4).hash("hello"));
+        assertThat(s.hash("Aa")).isNotEqualTo(s.hash("BB"));
+        // strings that differ only in length, or in chars past the first word
+        assertThat(s.hash("")).isNotEqualTo(s.hash("\0"));
+        assertThat(s.hash("abcdefgh")).isNotEqualTo(s.hash("abcdefgi"));
+        assertThat(s.hash(42)).isEqualTo(s.hash(Integer.valueOf(42)));
+        assertThat(s.hash(42)).isNotEqualTo(HashStrategy.seeded(3, 4).hash(42));
+    }
+
+    @DisplayName("seeded MyHashMap passes the MyHashMap tests")
+    @Test
+    public void testSeededMap() {
+        TestMyHashMap.sanityClearTest(new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMap.containsKeyTest(new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMap.sanityGetTest(new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMap.sanitySizeTest(new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMap.sanityPutTest(new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMap.functionalityTest(new MyHashMap<>(HashStrategy.seeded()),
+                new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMap.collidingKeysTest(new MyHashMap<>(HashStrategy.seeded()));
+        TestMyHashMapExtra.updateOperationsTest(new MyHashMap<>(HashStrategy.seeded()));
+    }
+
+    @DisplayName("custom equality")
+    @Test
+    public void testCaseInsensitive() {
+        MyHashMap<String, Integer> b = new MyHashMap<>(HashStrategy.of(
+                s -> s.toLowerCase(Locale.ROOT).hashCode(), String::equalsIgnoreCase));
+        b.put("Hello", 1);
+        b.put("HELLO", 2);
+        assertThat(b.size()).isEqualTo(1);
+        assertThat(b.get("hello")).isEqualTo(2);
+        assertThat(b.remove("hELLo")).isEqualTo(2);
+        assertThat(b.size()).isEqualTo(0);
+    }
+
+    @DisplayName("array keys")
+    @Test
+    public void testArrayKeys() {
+        MyHashMap<int[], String> b = new MyHashMap<>(HashStrategy.of(Arrays::hashCode, Arrays::equals));
+        b.put(new int[]{1, 2, 3}, "a");
+        assertThat(b.get(new int[]{1, 2, 3})).isEqualTo("a");
+        assertThat(b.containsKey(new int[]{3, 2, 1})).isFalse();
+    }
+
+    @DisplayName("custom equality in a treeified bucket")
+    @Test
+    public void testCustomEqualityTreeified() {
+        // every key has hash 0, and equality ignores case, which compareTo() doesn't
+        MyHashMap<String, Integer> b = new MyHashMap<>(HashStrategy.of(s -> 0, String::equalsIgnoreCase));
+        for (int i = 0; i < 100; i++) {
+            b.put("key" + i, i);
+        }
+        assertThat(longestBucket(b)).isEqualTo(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(b.get("KEY" + i)).isEqualTo(i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertThat(b.remove("Key" + i)).isEqualTo(i);
+        }
+        assertThat(b.size()).isEqualTo(50);
+        assertThat(b.containsKey("KEY1")).isTrue();
+        assertThat(b.containsKey("KEY2")).isFalse();
+    }
+
+    @DisplayName("putAll between maps with different strategies")
+    @Test
+    public void testPutAllRehashes() {
+        MyHashMap<String, Integer> plain = new MyHashMap<>();
+        plain.put("a", 1);
+        plain.put("A", 2);
+        MyHashMap<String, Integer> b = new MyHashMap<>(HashStrategy.of(
+                s -> s.toLowerCase(Locale.ROOT).hashCode(), String::equalsIgnoreCase));
+        b.putAll(plain);
+        assertThat(b.size()).isEqualTo(1);
+
+        MyHashMap<String, Integer> seeded = new MyHashMap<>(HashStrategy.seeded());
+        seeded.putAll(plain);
+        assertThat(seeded.get("a")).isEqualTo(1);
+        assertThat(seeded.get("A")).isEqualTo(2);
+    }
+}
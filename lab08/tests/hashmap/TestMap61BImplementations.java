@@ -0,0 +1,103 @@
+package hashmap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+/**
+ * Runs the MyHashMap test suite against the other general-purpose Map61B
+ * implementations in this package. Tests of what is particular to one
+ * implementation are in its own test class.
+ */
+public class TestMap61BImplementations {
+
+    /** Creates an empty map of one implementation, with any key and value types. */
+    interface MapFactory {
+        <K, V> Map61B<K, V> create();
+    }
+
+    @DisplayName("clear")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void sanityClearTest(MapFactory factory) {
+        TestMyHashMap.sanityClearTest(factory.create());
+    }
+
+    @DisplayName("containsKey")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void containsKeyTest(MapFactory factory) {
+        TestMyHashMap.containsKeyTest(factory.create());
+    }
+
+    @DisplayName("get")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void sanityGetTest(MapFactory factory) {
+        TestMyHashMap.sanityGetTest(factory.create());
+    }
+
+    @DisplayName("size")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void sanitySizeTest(MapFactory factory) {
+        TestMyHashMap.sanitySizeTest(factory.create());
+    }
+
+    @DisplayName("put")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void sanityPutTest(MapFactory factory) {
+        TestMyHashMap.sanityPutTest(factory.create());
+    }
+
+    @DisplayName("functionality")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void functionalityTest(MapFactory factory) {
+        TestMyHashMap.functionalityTest(factory.create(), factory.create());
+    }
+
+    @DisplayName("edge cases")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void edgeCasesTest(MapFactory factory) {
+        TestMyHashMap.edgeCasesTest(factory.create());
+    }
+
+    @DisplayName("colliding keys")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void collidingKeysTest(MapFactory factory) {
+        TestMyHashMap.collidingKeysTest(factory.create());
+    }
+
+    @DisplayName("keySet")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void sanityKeySetTest(MapFactory factory) {
+        TestMyHashMapExtra.sanityKeySetTest(factory.create());
+    }
+
+    @DisplayName("update operations")
+    @ParameterizedTest
+    @MethodSource("mapArguments")
+    public void updateOperationsTest(MapFactory factory) {
+        TestMyHashMapExtra.updateOperationsTest(factory.create());
+    }
+
+    private static Stream<Arguments> mapArguments() {
+        return Stream.of(
+                Arguments.of(Named.of("OpenAddressingMap", (MapFactory) OpenAddressingMap::new)),
+                Arguments.of(Named.of("ConcurrentMyHashMap", (MapFactory) ConcurrentMyHashMap::new)),
+                Arguments.of(Named.of("PersistentHashMap", (MapFactory) PersistentHashMap::new)),
+                Arguments.of(Named.of("CuckooHashMap", (MapFactory) CuckooHashMap::new)),
+                Arguments.of(Named.of("SwissTableMap", (MapFactory) MyHashMapFactory::createSwissTableMap)),
+                Arguments.of(Named.of("AdaptiveMap", (MapFactory) AdaptiveMap::new))
+        );
+    }
+}
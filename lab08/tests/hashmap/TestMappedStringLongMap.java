@@ -0,0 +1,139 @@
+package hashmap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+/** Tests of MappedStringLongMap, including reopening a map from its files. */
+public class TestMappedStringLongMap {
+
+    private Path dir;
+
+    @Before
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("mapped-map");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @DisplayName("put, get, remove and size against java.util.HashMap")
+    @Test
+    public void testRandomOperations() throws IOException {
+        Map<String, Long> ref = new HashMap<>();
+        Random r = new Random(61);
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            for (int i = 0; i < 100000; i++) {
+                String key = "k" + r.nextInt(20000);
+                switch (r.nextInt(3)) {
+                    case 0 -> assertThat(m.remove(key)).isEqualTo(ref.remove(key));
+                    case 1 -> assertThat(m.get(key)).isEqualTo(ref.get(key));
+                    default -> {
+                        m.put(key, (long) i);
+                        ref.put(key, (long) i);
+                    }
+                }
+                assertThat(m.size()).isEqualTo(ref.size());
+            }
+            assertThat(m.keySet()).isEqualTo(ref.keySet());
+            assertThat(m.getLong("missing", -1)).isEqualTo(-1);
+        }
+    }
+
+    @DisplayName("reopen")
+    @Test
+    public void testReopen() throws IOException {
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            for (long i = 0; i < 10000; i++) {
+                m.putLong("hi" + i, i * i);
+            }
+            m.remove("hi0");
+        }
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            assertThat(m.size()).isEqualTo(9999);
+            assertThat(m.containsKey("hi0")).isFalse();
+            for (long i = 1; i < 10000; i++) {
+                assertThat(m.getLong("hi" + i, -1)).isEqualTo(i * i);
+            }
+            m.put("hi0", 0L);
+            assertThat(m.size()).isEqualTo(10000);
+        }
+    }
+
+    @DisplayName("non-ASCII keys")
+    @Test
+    public void testUnicodeKeys() throws IOException {
+        String[] keys = {"", "caf\u00e9", "\u65e5\u672c\u8a9e", "\ud83d\ude00 emoji", "\u00e9", "e\u0301"};
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            for (int i = 0; i < keys.length; i++) {
+                m.put(keys[i], (long) i);
+            }
+        }
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            for (int i = 0; i < keys.length; i++) {
+                assertThat(m.get(keys[i])).isEqualTo(i);
+            }
+            Set<String> iterated = new HashSet<>();
+            for (String key : m) {
+                iterated.add(key);
+            }
+            assertThat(iterated).containsExactly((Object[]) keys);
+        }
+    }
+
+    @DisplayName("clear")
+    @Test
+    public void testClear() throws IOException {
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            for (long i = 0; i < 1000; i++) {
+                m.putLong("hi" + i, i);
+            }
+            m.clear();
+            assertThat(m.size()).isEqualTo(0);
+            assertThat(m.containsKey("hi1")).isFalse();
+            m.putLong("hi1", 61);
+        }
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            assertThat(m.size()).isEqualTo(1);
+            assertThat(m.get("hi1")).isEqualTo(61);
+        }
+    }
+
+    @DisplayName("only one open map per directory")
+    @Test
+    public void testAlreadyOpen() throws IOException {
+        try (MappedStringLongMap m = MappedStringLongMap.open(dir)) {
+            m.putLong("a", 1);
+            assertThrows(IOException.class, () -> MappedStringLongMap.open(dir));
+        }
+    }
+
+    @DisplayName("rejects other files")
+    @Test
+    public void testNotAMap() throws IOException {
+        Files.write(dir.resolve("table"), new byte[100]);
+        Files.write(dir.resolve("keys"), new byte[100]);
+        assertThrows(IOException.class, () -> MappedStringLongMap.open(dir));
+    }
+}
@@ -42,7 +42,7 @@ public class TestMyHashMap {
         sanityClearTest(new MyHashMap<>());
     }
 
-    public static void sanityClearTest(MyHashMap<String, Integer> b) {
+    public static void sanityClearTest(Map61B<String, Integer> b) {
         for (int i = 0; i < 455; i++) {
             b.put("hi" + i, i);
             //make sure put is working via containsKey and get
@@ -65,7 +65,7 @@ public class TestMyHashMap {
         containsKeyTest(new MyHashMap<>());
     }
 
-    public static void containsKeyTest(MyHashMap<String, Integer> b) {
+    public static void containsKeyTest(Map61B<String, Integer> b) {
         assertThat(b.containsKey("waterYouDoingHere")).isFalse();
         b.put("waterYouDoingHere", 0);
         assertThat(b.containsKey("waterYouDoingHere")).isTrue();
@@ -82,7 +82,7 @@ public class TestMyHashMap {
         sanityGetTest(new MyHashMap<>());
     }
 
-    public static void sanityGetTest(MyHashMap<String, Integer> b) {
+    public static void sanityGetTest(Map61B<String, Integer> b) {
         assertThat(b.get("starChild")).isNull();
         b.put("starChild", 5);
         assertThat(b.get("starChild")).isEqualTo(5);
@@ -98,7 +98,7 @@ public class TestMyHashMap {
         sanitySizeTest(new MyHashMap<>());
     }
 
-    public static void sanitySizeTest(MyHashMap<String, Integer> b) {
+    public static void sanitySizeTest(Map61B<String, Integer> b) {
         assertThat(b.size()).isEqualTo(0);
         b.put("hi", 1);
         assertThat(b.size()).isEqualTo(1);
@@ -115,7 +115,7 @@ public class TestMyHashMap {
         sanityPutTest(new MyHashMap<>());
     }
 
-    public static void sanityPutTest(MyHashMap<String, Integer> b) {
+    public static void sanityPutTest(Map61B<String, Integer> b) {
         b.put("hi", 1);
         assertThat(b.containsKey("hi")).isTrue();
         assertThat(b.get("hi")).isEqualTo(1);
@@ -128,8 +128,8 @@ public class TestMyHashMap {
         functionalityTest(new MyHashMap<>(), new MyHashMap<>());
     }
 
-    public static void functionalityTest(MyHashMap<String, String> dictionary,
-                                         MyHashMap<String, Integer> studentIDs) {
+    public static void functionalityTest(Map61B<String, String> dictionary,
+                                         Map61B<String, Integer> studentIDs) {
         assertThat(dictionary.size()).isEqualTo(0);
 
         // can put objects in dictionary and get them
@@ -195,12 +195,114 @@ public class TestMyHashMap {
         });
     }
 
+    /** Runs the general tests against a map that resizes incrementally, with
+     *  lookups and removes interleaved while old buckets are still being migrated.
+     */
+    @DisplayName("incremental resize")
+    @Test
+    public void testIncrementalResize() {
+        sanityClearTest(new MyHashMap<>(16, 0.75, true));
+        functionalityTest(new MyHashMap<>(16, 0.75, true), new MyHashMap<>(16, 0.75, true));
+        edgeCasesTest(new MyHashMap<>(16, 0.75, true));
+        sanityResizeTest(new MyHashMap<>(16, 0.75, true), 16, 0.75);
+
+        MyHashMap<String, Integer> m = new MyHashMap<>(16, 0.75, true);
+        Map<String, Integer> ref = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            m.put("hi" + i, i);
+            ref.put("hi" + i, i);
+            if (i % 3 == 0) {
+                assertThat(m.remove("hi" + (i / 2))).isEqualTo(ref.remove("hi" + (i / 2)));
+            }
+            assertThat(m.get("hi" + (i / 7))).isEqualTo(ref.get("hi" + (i / 7)));
+        }
+        assertThat(m.size()).isEqualTo(ref.size());
+        assertThat(m.keySet()).containsExactlyElementsIn(ref.keySet());
+    }
+
+    /** Puts and removes keys whose hash codes collide heavily, so that buckets
+     *  are converted into trees and back, and checks against java.util.HashMap.
+     */
+    @DisplayName("colliding keys")
+    @Test
+    public void testCollidingKeys() {
+        collidingKeysTest(new MyHashMap<>());
+        collidingKeysTest(new MyHashMap<>(16, 0.75, true));
+    }
+
+    public static void collidingKeysTest(Map61B<Object, Integer> map) {
+        Map<Object, Integer> ref = new HashMap<>();
+        java.util.Random r = new java.util.Random(61);
+        for (int i = 0; i < 50000; i++) {
+            // comparable keys with 4 distinct hash codes, and non-comparable ones with 2
+            Object key = r.nextBoolean()
+                    ? new Collider(r.nextInt(2000), 4)
+                    : new UnorderedCollider(r.nextInt(500), 2);
+            if (r.nextInt(3) > 0) {
+                map.put(key, i);
+                ref.put(key, i);
+            } else {
+                assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+            }
+            assertThat(map.get(key)).isEqualTo(ref.get(key));
+            assertThat(map.size()).isEqualTo(ref.size());
+        }
+        assertThat(map.keySet()).containsExactlyElementsIn(ref.keySet());
+    }
+
+    /** A key whose hash code only takes a few distinct values. */
+    static class Collider implements Comparable<Collider> {
+        final int id;
+        final int hashes;
+
+        Collider(int id, int hashes) {
+            this.id = id;
+            this.hashes = hashes;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % hashes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collider other && other.id == id;
+        }
+
+        @Override
+        public int compareTo(Collider o) {
+            return Integer.compare(id, o.id);
+        }
+    }
+
+    /** A colliding key that is not Comparable, so TreeBucket can only tell them apart with equals. */
+    static class UnorderedCollider {
+        final int id;
+        final int hashes;
+
+        UnorderedCollider(int id, int hashes) {
+            this.id = id;
+            this.hashes = hashes;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % hashes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof UnorderedCollider other && other.id == id;
+        }
+    }
+
     /** Returns the length of the backing array of the given map.
      *  Be sure that you only use one instance variable to hold the buckets,
      *  otherwise this will not work properly.
      *
      *  Don't worry about knowing how this method works. */
-    private static <K, V> int sizeOfBackingArray(MyHashMap<K, V> m) {
+    static <K, V> int sizeOfBackingArray(MyHashMap<K, V> m) {
         Class<?> clazz = m.getClass();
         if (clazz.getSuperclass().equals(MyHashMap.class)) {
             // anonymous bucketed extensions of MyHashMap
@@ -239,7 +341,7 @@ public class TestMyHashMap {
      * Does your map behave the same way?
      * Note Bee's strange equals and hashCode implementations!
      */
-    public static void edgeCasesTest(MyHashMap<Bee, Integer> map) {
+    public static void edgeCasesTest(Map61B<Bee, Integer> map) {
 
         Map<Bee, Integer> ref = new HashMap<>();
 
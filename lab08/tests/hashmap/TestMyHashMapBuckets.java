@@ -92,6 +92,13 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.edgeCasesTest(createBucketedMap(bucketType));
     }
 
+    @DisplayName("colliding keys")
+    @ParameterizedTest
+    @MethodSource("bucketArguments")
+    public void collidingKeysTest(Class<? extends Collection> bucketType) {
+        TestMyHashMap.collidingKeysTest(createBucketedMap(bucketType));
+    }
+
     private static Stream<Arguments> bucketArguments() {
         return Stream.of(
                 Arguments.of(Named.of("LinkedList", LinkedList.class)),
@@ -3,8 +3,15 @@ package hashmap;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
 import static com.google.common.truth.Truth.assertThat;
 
 /** Tests of optional parts of lab 8. */
@@ -60,7 +67,7 @@ public class TestMyHashMapExtra {
         sanityKeySetTest(new MyHashMap<>());
     }
 
-    public static void sanityKeySetTest(MyHashMap<String, Integer> b) {
+    public static void sanityKeySetTest(Map61B<String, Integer> b) {
         HashSet<String> values = new HashSet<String>();
         for (int i = 0; i < 455; i++) {
             b.put("hi" + i, 1);
@@ -71,4 +78,310 @@ public class TestMyHashMapExtra {
         assertThat(values).containsExactlyElementsIn(keySet);
         assertThat(keySet).containsExactlyElementsIn(values);
     }
+
+    @Test
+    public void testShrink() {
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        b.setShrinkFactor(0.1);
+        for (int i = 0; i < 10000; i++) {
+            b.put("hi" + i, i);
+        }
+        int grown = TestMyHashMap.sizeOfBackingArray(b);
+        for (int i = 0; i < 9990; i++) {
+            assertThat(b.remove("hi" + i)).isEqualTo(i);
+        }
+        assertThat(b.size()).isEqualTo(10);
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isLessThan(grown);
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isAtLeast(16);
+        for (int i = 9990; i < 10000; i++) {
+            assertThat(b.get("hi" + i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testNoShrinkByDefault() {
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            b.put("hi" + i, i);
+        }
+        int grown = TestMyHashMap.sizeOfBackingArray(b);
+        for (int i = 0; i < 1000; i++) {
+            b.remove("hi" + i);
+        }
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(grown);
+    }
+
+    @Test
+    public void testCompact() {
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            b.put("hi" + i, i);
+        }
+        for (int i = 100; i < 10000; i++) {
+            b.remove("hi" + i);
+        }
+        b.compact();
+        // 100 items need 256 buckets at load factor 0.75
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(256);
+        assertThat(b.size()).isEqualTo(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(b.get("hi" + i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testExpectedSize() {
+        MyHashMap<String, Integer> b = MyHashMap.withExpectedSize(1000);
+        // 1000 items need 2048 buckets at load factor 0.75
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(2048);
+        for (int i = 0; i < 1000; i++) {
+            b.put("hi" + i, i);
+        }
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(2048);
+        assertThat(b.size()).isEqualTo(1000);
+
+        b.ensureCapacity(500);
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(2048);
+        b.ensureCapacity(10000);
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(16384);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(b.get("hi" + i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testPutAll() {
+        MyHashMap<String, Integer> source = new MyHashMap<>();
+        ULLMap<String, Integer> linked = new ULLMap<>();
+        for (int i = 0; i < 1000; i++) {
+            source.put("hi" + i, i);
+            linked.put("hi" + i, -i);
+        }
+
+        // empty target: keys are copied without a duplicate check
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        b.putAll(source);
+        assertThat(b.size()).isEqualTo(1000);
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(2048);
+
+        // overlapping keys replace values, and the table is grown only once
+        b.put("extra", -1);
+        b.putAll(source);
+        assertThat(b.size()).isEqualTo(1001);
+        b.putAll(linked);
+        assertThat(b.size()).isEqualTo(1001);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(b.get("hi" + i)).isEqualTo(-i);
+        }
+        assertThat(b.get("extra")).isEqualTo(-1);
+
+        b.putAll(b);
+        assertThat(b.size()).isEqualTo(1001);
+    }
+
+    @Test
+    public void testBulkBuild() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.add(Map.entry("hi" + i, i));
+        }
+        entries.add(Map.entry("hi0", -1));
+        MyHashMap<String, Integer> b = MyHashMap.fromEntries(entries);
+        assertThat(b.size()).isEqualTo(1000);
+        assertThat(b.get("hi0")).isEqualTo(-1);
+        assertThat(TestMyHashMap.sizeOfBackingArray(b)).isEqualTo(2048);
+
+        MyHashMap<String, Integer> c = IntStream.range(0, 100000).parallel().boxed()
+                .collect(MyHashMap.toMyHashMap(i -> "hi" + i % 50000, i -> i, 50000));
+        assertThat(c.size()).isEqualTo(50000);
+        // sized once for the expected 50000, not grown from splits
+        assertThat(TestMyHashMap.sizeOfBackingArray(c)).isEqualTo(131072);
+        for (int i = 0; i < 50000; i++) {
+            // the later element of each pair wins
+            assertThat(c.get("hi" + i)).isEqualTo(i + 50000);
+        }
+    }
+
+    @Test
+    public void testStats() {
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        assertThat(b.stats()).isNull();
+        b.enableStats();
+        for (int i = 0; i < 1000; i++) {
+            b.put("hi" + i, i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            b.get("hi" + i);
+        }
+        HashMapStats stats = b.stats();
+        assertThat(stats.hits()).isEqualTo(1000);
+        assertThat(stats.misses()).isEqualTo(1000);
+        assertThat(stats.averageHitProbes()).isAtLeast(1.0);
+        assertThat(stats.maxHitProbes()).isAtLeast(1);
+        assertThat((double) stats.maxMissProbes()).isAtLeast(stats.averageMissProbes());
+
+        // 16 -> 2048 buckets
+        assertThat(stats.resizes()).isEqualTo(7);
+        assertThat(stats.resizeNanos()).isGreaterThan(0L);
+        assertThat(stats.loadHistory()).hasSize(1 + 2 * 7);
+        for (HashMapStats.LoadSample sample : stats.loadHistory()) {
+            // put() resizes before adding once the load is over 0.75
+            assertThat(sample.loadFactor()).isAtMost(0.75 + 1.0 / sample.buckets());
+        }
+
+        int[] lengths = stats.bucketLengths();
+        int buckets = 0;
+        int items = 0;
+        for (int len = 0; len < lengths.length; len++) {
+            buckets += lengths[len];
+            items += len * lengths[len];
+        }
+        assertThat(buckets).isEqualTo(TestMyHashMap.sizeOfBackingArray(b));
+        assertThat(items).isEqualTo(1000);
+    }
+
+    @Test
+    public void testStatsDuringIncrementalResize() {
+        MyHashMap<Object, Integer> b = new MyHashMap<>(16, 0.75, true);
+        b.enableStats();
+        for (int i = 0; i < 1000; i++) {
+            b.put(new TestMyHashMap.Collider(i, 1), i);
+        }
+        HashMapStats stats = b.stats();
+        // every key is in one treeified bucket
+        assertThat(stats.bucketLengths()[1000]).isEqualTo(1);
+        b.get(new TestMyHashMap.Collider(-1, 1));
+        assertThat(b.stats().maxMissProbes()).isLessThan(50);
+    }
+
+    @Test
+    public void testIteration() {
+        MyHashMap<String, Integer> b = new MyHashMap<>(16, 0.75, true);
+        Map<String, Integer> ref = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            b.put("hi" + i, i);
+            ref.put("hi" + i, i);
+        }
+        Set<String> keys = new HashSet<>();
+        for (String key : b) {
+            keys.add(key);
+        }
+        assertThat(keys).isEqualTo(ref.keySet());
+
+        Map<String, Integer> seen = new HashMap<>();
+        b.forEach(seen::put);
+        assertThat(seen).isEqualTo(ref);
+
+        for (Map.Entry<String, Integer> entry : b.entrySet()) {
+            entry.setValue(entry.getValue() + 1);
+        }
+        assertThat(b.get("hi0")).isEqualTo(1);
+        assertThat(b.entrySet()).hasSize(1000);
+        assertThat(b.keySet().contains("hi999")).isTrue();
+        assertThat(b.keySet().contains("bye")).isFalse();
+    }
+
+    @Test
+    public void testIteratorFailFast() {
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            b.put("hi" + i, i);
+        }
+        Iterator<String> it = b.iterator();
+        it.next();
+        // updating an existing key is not a structural modification
+        b.put("hi0", -1);
+        it.next();
+        b.put("new", 1);
+        assertThrows(ConcurrentModificationException.class, it::next);
+
+        Iterator<String> it2 = b.iterator();
+        b.remove("hi1");
+        assertThrows(ConcurrentModificationException.class, it2::next);
+
+        assertThrows(ConcurrentModificationException.class,
+                () -> b.forEach((k, v) -> b.put(k + "!", v)));
+    }
+
+    /**
+     * A map filled just past its load factor resizes at the next update, even
+     * one that replaces a value, which moves the keys a scan hasn't reached.
+     */
+    @Test
+    public void testIteratorFailFastOnResize() {
+        for (boolean incremental : new boolean[]{false, true}) {
+            MyHashMap<Integer, Integer> b = new MyHashMap<>(16, 0.75, incremental);
+            for (int i = 0; i < 13; i++) {
+                b.put(i * 17, i);
+            }
+            assertThrows(ConcurrentModificationException.class, () -> {
+                for (int k : b) {
+                    b.put(k, b.get(k) + 1);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testUpdateOperations() {
+        updateOperationsTest(new MyHashMap<>());
+        updateOperationsTest(new MyHashMap<>(16, 0.75, true));
+        updateOperationsTest(new ULLMap<>());
+        // the default methods of Map61B
+        updateOperationsTest(new OpenAddressingMap<>());
+    }
+
+    public static void updateOperationsTest(Map61B<String, Integer> b) {
+        assertThat(b.getOrDefault("a", -1)).isEqualTo(-1);
+        assertThat(b.putIfAbsent("a", 1)).isNull();
+        assertThat(b.putIfAbsent("a", 2)).isEqualTo(1);
+        assertThat(b.getOrDefault("a", -1)).isEqualTo(1);
+
+        assertThat(b.computeIfAbsent("b", String::length)).isEqualTo(1);
+        assertThat(b.computeIfAbsent("b", k -> { throw new AssertionError("b is present"); })).isEqualTo(1);
+        assertThat(b.computeIfAbsent("c", k -> null)).isNull();
+        assertThat(b.containsKey("c")).isFalse();
+
+        assertThat(b.merge("a", 10, Integer::sum)).isEqualTo(11);
+        assertThat(b.merge("d", 10, Integer::sum)).isEqualTo(10);
+        assertThat(b.adjustOrPut("d", v -> v * 2, 0)).isEqualTo(20);
+        assertThat(b.adjustOrPut("e", v -> v * 2, 5)).isEqualTo(5);
+        assertThat(b.size()).isEqualTo(4);
+
+        // counting words, one update per word
+        String[] words = "the cat and the hat and the bat".split(" ");
+        for (String w : words) {
+            b.merge(w, 1, Integer::sum);
+        }
+        for (String w : words) {
+            b.adjustOrPut("count:" + w, v -> v + 1, 1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            b.computeIfAbsent("k" + i, k -> k.length());
+        }
+        assertThat(b.get("the")).isEqualTo(3);
+        assertThat(b.get("count:and")).isEqualTo(2);
+        assertThat(b.get("hat")).isEqualTo(1);
+        assertThat(b.get("k999")).isEqualTo(4);
+        assertThat(b.size()).isEqualTo(4 + 5 + 5 + 1000);
+    }
+
+    @Test
+    public void testUpdateOperationsFailFast() {
+        MyHashMap<String, Integer> b = new MyHashMap<>();
+        b.put("a", 1);
+        assertThrows(ConcurrentModificationException.class,
+                () -> b.computeIfAbsent("b", k -> {
+                    b.put("c", 3);
+                    return 2;
+                }));
+        assertThrows(ConcurrentModificationException.class,
+                () -> b.merge("a", 1, (x, y) -> {
+                    b.remove("c");
+                    return x + y;
+                }));
+        // merging to null removes the key
+        assertThat(b.merge("a", 1, (x, y) -> null)).isNull();
+        assertThat(b.containsKey("a")).isFalse();
+    }
 }
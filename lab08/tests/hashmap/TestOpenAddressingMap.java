@@ -0,0 +1,54 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests of OpenAddressingMap beyond TestMap61BImplementations: a randomized
+ * test of removal, since backward-shift deletion is easy to get wrong, and
+ * the table sizes that the other open-addressing maps share.
+ */
+public class TestOpenAddressingMap {
+
+    /** Mixes puts and removes on a small key space so probe runs collide and wrap. */
+    @DisplayName("random put/remove")
+    @Test
+    public void testRandomPutRemove() {
+        OpenAddressingMap<Integer, Integer> map = new OpenAddressingMap<>(4);
+        Map<Integer, Integer> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 200000; i++) {
+            int key = r.nextInt(2000);
+            if (r.nextBoolean()) {
+                map.put(key, i);
+                ref.put(key, i);
+            } else {
+                assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+        }
+        for (int key = 0; key < 2000; key++) {
+            assertThat(map.get(key)).isEqualTo(ref.get(key));
+            assertThat(map.containsKey(key)).isEqualTo(ref.containsKey(key));
+        }
+        assertThat(map.keySet()).containsExactlyElementsIn(ref.keySet());
+    }
+
+    @DisplayName("table sizes")
+    @Test
+    public void testTableSizeFor() {
+        assertThat(OpenAddressingMap.tableSizeFor(0)).isEqualTo(1);
+        assertThat(OpenAddressingMap.tableSizeFor(1)).isEqualTo(1);
+        assertThat(OpenAddressingMap.tableSizeFor(17)).isEqualTo(32);
+        assertThat(OpenAddressingMap.tableSizeFor(1 << 20)).isEqualTo(1 << 20);
+        // sizes past the largest power of two an array can have are clamped, not overflowed
+        assertThat(OpenAddressingMap.tableSizeFor((1 << 30) + 1)).isEqualTo(1 << 30);
+        assertThat(OpenAddressingMap.tableSizeFor(Integer.MAX_VALUE)).isEqualTo(1 << 30);
+    }
+}
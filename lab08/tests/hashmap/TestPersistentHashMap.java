@@ -0,0 +1,153 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests of PersistentHashMap beyond TestMap61BImplementations: collision
+ * nodes, and snapshots and older versions that never change.
+ */
+public class TestPersistentHashMap {
+
+    /**
+     * Mixes puts and removes of keys with only a few distinct hash codes,
+     * so that collision nodes are created, split and collapsed.
+     */
+    @DisplayName("random put/remove with colliding keys")
+    @Test
+    public void testRandomPutRemove() {
+        for (int hashes : new int[]{1, 7, 100000}) {
+            PersistentHashMap<TestMyHashMap.Collider, Integer> map = new PersistentHashMap<>();
+            Map<TestMyHashMap.Collider, Integer> ref = new HashMap<>();
+            Random r = new Random(61);
+            for (int i = 0; i < 20000; i++) {
+                TestMyHashMap.Collider key = new TestMyHashMap.Collider(r.nextInt(hashes == 1 ? 50 : 2000), hashes);
+                if (r.nextBoolean()) {
+                    map.put(key, i);
+                    ref.put(key, i);
+                } else {
+                    assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+                }
+                assertThat(map.size()).isEqualTo(ref.size());
+            }
+            for (TestMyHashMap.Collider key : ref.keySet()) {
+                assertThat(map.get(key)).isEqualTo(ref.get(key));
+            }
+            List<TestMyHashMap.Collider> iterated = new ArrayList<>();
+            map.forEach(iterated::add);
+            assertThat(iterated).containsExactlyElementsIn(ref.keySet());
+        }
+    }
+
+    @DisplayName("snapshots and older versions are unaffected by later writes")
+    @Test
+    public void testSnapshots() {
+        PersistentHashMap<Integer, Integer> map = new PersistentHashMap<>();
+        List<PersistentHashMap<Integer, Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+            if (i % 100 == 0) {
+                versions.add(map.snapshot());
+            }
+        }
+        PersistentHashMap<Integer, Integer> full = map.snapshot();
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove(i);
+        }
+        map.put(1, -1);
+
+        for (int v = 0; v < versions.size(); v++) {
+            PersistentHashMap<Integer, Integer> version = versions.get(v);
+            assertThat(version.size()).isEqualTo(v * 100 + 1);
+            for (int i = 0; i < 1000; i++) {
+                assertThat(version.get(i)).isEqualTo(i <= v * 100 ? i : null);
+            }
+        }
+        assertThat(full.size()).isEqualTo(1000);
+        assertThat(full.get(1)).isEqualTo(1);
+        assertThat(map.size()).isEqualTo(500);
+        assertThat(map.get(1)).isEqualTo(-1);
+
+        // writes to a snapshot don't show through to the map it came from
+        full.put(5000, 5000);
+        assertThat(map.containsKey(5000)).isFalse();
+
+        PersistentHashMap<Integer, Integer> with = map.with(7000, 7);
+        PersistentHashMap<Integer, Integer> without = with.without(1);
+        assertThat(map.containsKey(7000)).isFalse();
+        assertThat(with.get(7000)).isEqualTo(7);
+        assertThat(with.get(1)).isEqualTo(-1);
+        assertThat(without.containsKey(1)).isFalse();
+        assertThat(without.size()).isEqualTo(500);
+    }
+
+    @DisplayName("iterators walk the version they started from")
+    @Test
+    public void testIteratorIsolation() {
+        PersistentHashMap<Integer, Integer> map = new PersistentHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (int key : map) {
+            seen.add(key);
+            map.remove(key);
+            map.put(key + 1000, key);
+        }
+        assertThat(seen).hasSize(100);
+        assertThat(map.size()).isEqualTo(100);
+        assertThat(map.containsKey(0)).isFalse();
+    }
+
+    /**
+     * A writer keeps updating the map while readers take snapshots. The
+     * writer sets keys 0..99 to the round number in order, so in every
+     * version the values never increase with the key, and differ by at most
+     * one round. A snapshot that mixed two versions could break that.
+     */
+    @DisplayName("readers see consistent snapshots while a writer updates")
+    @Test
+    public void testConcurrentSnapshots() throws InterruptedException {
+        PersistentHashMap<Integer, Integer> map = new PersistentHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, 0);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(new Thread(() -> {
+                while (!done.get()) {
+                    PersistentHashMap<Integer, Integer> snapshot = map.snapshot();
+                    int first = snapshot.get(0);
+                    for (int i = 1; i < 100; i++) {
+                        int value = snapshot.get(i);
+                        if (value > snapshot.get(i - 1) || value < first - 1) {
+                            errors.add(new AssertionError("inconsistent snapshot at key " + i));
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread t : readers) {
+            t.start();
+        }
+        for (int round = 1; round <= 2000; round++) {
+            for (int i = 0; i < 100; i++) {
+                map.put(i, round);
+            }
+        }
+        done.set(true);
+        for (Thread t : readers) {
+            t.join();
+        }
+        assertThat(errors).isEmpty();
+        assertThat(map.get(99)).isEqualTo(2000);
+    }
+}
@@ -0,0 +1,106 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Tests of ObjectIntMap, IntIntMap and IntDoubleMap against java.util.HashMap. */
+public class TestPrimitiveMaps {
+
+    @DisplayName("ObjectIntMap counting")
+    @Test
+    public void testObjectIntMapCounting() {
+        ObjectIntMap<String> counts = new ObjectIntMap<>();
+        Map<String, Integer> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 100000; i++) {
+            String word = "w" + r.nextInt(5000);
+            int expected = ref.merge(word, 1, Integer::sum);
+            assertThat(counts.increment(word)).isEqualTo(expected);
+        }
+        assertThat(counts.size()).isEqualTo(ref.size());
+        for (String word : ref.keySet()) {
+            assertThat(counts.get(word)).isEqualTo(ref.get(word));
+        }
+        assertThat(counts.keySet()).containsExactlyElementsIn(ref.keySet());
+        assertThat(counts).containsExactlyElementsIn(ref.keySet());
+        assertThat(counts.get("missing")).isEqualTo(counts.noEntryValue());
+        assertThat(counts.containsKey("missing")).isFalse();
+    }
+
+    @DisplayName("ObjectIntMap put/remove")
+    @Test
+    public void testObjectIntMapPutRemove() {
+        ObjectIntMap<Integer> map = new ObjectIntMap<>(4, 0.5, -1);
+        Map<Integer, Integer> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(1000);
+            if (r.nextBoolean()) {
+                map.put(key, i);
+                ref.put(key, i);
+            } else {
+                assertThat(map.remove(key)).isEqualTo(ref.containsKey(key) ? ref.remove(key) : -1);
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+        }
+        Map<Integer, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertThat(seen).isEqualTo(ref);
+        map.clear();
+        assertThat(map.size()).isEqualTo(0);
+        assertThat(map.get(ref.keySet().iterator().next())).isEqualTo(-1);
+    }
+
+    @DisplayName("IntIntMap put/addTo/remove")
+    @Test
+    public void testIntIntMap() {
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 200000; i++) {
+            // include 0 and negative keys, which are stored specially or spread differently
+            int key = r.nextInt(2000) - 1000;
+            switch (r.nextInt(3)) {
+                case 0 -> {
+                    map.put(key, i);
+                    ref.put(key, i);
+                }
+                case 1 -> assertThat(map.addTo(key, 3)).isEqualTo(ref.merge(key, 3, Integer::sum));
+                default -> assertThat(map.remove(key)).isEqualTo(ref.containsKey(key) ? ref.remove(key) : 0);
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+        }
+        for (int key = -1000; key < 1000; key++) {
+            assertThat(map.containsKey(key)).isEqualTo(ref.containsKey(key));
+            assertThat(map.getOrDefault(key, Integer.MIN_VALUE))
+                    .isEqualTo(ref.getOrDefault(key, Integer.MIN_VALUE));
+        }
+        assertThat(map.keys()).asList().containsExactlyElementsIn(ref.keySet());
+    }
+
+    @DisplayName("IntDoubleMap put/addTo/remove")
+    @Test
+    public void testIntDoubleMap() {
+        IntDoubleMap map = new IntDoubleMap();
+        Map<Integer, Double> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(500);
+            double delta = r.nextDouble();
+            if (r.nextInt(4) == 0) {
+                assertThat(map.remove(key)).isEqualTo(ref.containsKey(key) ? ref.remove(key) : 0.0);
+            } else {
+                assertThat(map.addTo(key, delta)).isEqualTo(ref.merge(key, delta, Double::sum));
+            }
+        }
+        Map<Integer, Double> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertThat(seen).isEqualTo(ref);
+    }
+}
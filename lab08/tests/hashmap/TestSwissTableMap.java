@@ -0,0 +1,64 @@
+package hashmap;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests of SwissTableMap beyond TestMap61BImplementations: randomized
+ * tests of removal, since DELETED markers and the rebuilds that clear
+ * them are easy to get wrong.
+ */
+public class TestSwissTableMap {
+
+    /** Mixes puts and removes on a small key space so probe runs collide and wrap. */
+    @DisplayName("random put/remove")
+    @Test
+    public void testRandomPutRemove() {
+        SwissTableMap<Integer, Integer> map = new SwissTableMap<>(4);
+        Map<Integer, Integer> ref = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 200000; i++) {
+            int key = r.nextInt(2000);
+            if (r.nextBoolean()) {
+                map.put(key, i);
+                ref.put(key, i);
+            } else {
+                assertThat(map.remove(key)).isEqualTo(ref.remove(key));
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+        }
+        for (int key = 0; key < 2000; key++) {
+            assertThat(map.get(key)).isEqualTo(ref.get(key));
+            assertThat(map.containsKey(key)).isEqualTo(ref.containsKey(key));
+        }
+        assertThat(map.keySet()).containsExactlyElementsIn(ref.keySet());
+    }
+
+    /**
+     * Keeps the map at a constant size while keys come and go, so DELETED
+     * markers pile up and the table has to be rebuilt in place.
+     */
+    @DisplayName("sliding window of keys")
+    @Test
+    public void testSlidingWindow() {
+        SwissTableMap<Integer, Integer> map = new SwissTableMap<>();
+        for (int i = 0; i < 200000; i++) {
+            map.put(i, i);
+            if (i >= 1000) {
+                assertThat(map.remove(i - 1000)).isEqualTo(i - 1000);
+                assertThat(map.containsKey(i - 1000)).isFalse();
+            }
+            assertThat(map.get(i - i % 1000)).isEqualTo(i - i % 1000);
+        }
+        assertThat(map.size()).isEqualTo(1000);
+        for (int i = 199000; i < 200000; i++) {
+            assertThat(map.get(i)).isEqualTo(i);
+        }
+    }
+}
@@ -4,13 +4,20 @@ import edu.princeton.cs.algs4.Stopwatch;
 import java.util.*;
 
 import hashmap.Map61B;
+import hashmap.MyHashMap;
 
 import static hashmap.MyHashMapFactory.createBucketedMap;
+import static hashmap.MyHashMapFactory.createCuckooMap;
+import static hashmap.MyHashMapFactory.createOpenAddressingMap;
+import static hashmap.MyHashMapFactory.createSwissTableMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Neil Kulkarni adapted from Josh Hug, Brendan Hu
  */
 public class BucketsSpeedTest {
+    /** Whether to collect MyHashMap statistics and print them next to each timing. */
+    private static boolean printStats;
+
     /**
      * Requests user input and performs tests of three different bucket
      * implementations. ARGS is unused. 
@@ -26,6 +33,8 @@ public class BucketsSpeedTest {
                 """);
         System.out.print("What would you like L to be?: ");
         int L = waitForPositiveInt(input);
+        System.out.print("Print hash table statistics next to each timing? (y/n) ");
+        printStats = input.nextLine().trim().toLowerCase().startsWith("y");
 
         String repeat;
 
@@ -45,6 +54,16 @@ public class BucketsSpeedTest {
             for (Class<? extends Collection> bucketType : bucketTypes) {
                 timeRandomMap61B(createBucketedMap(bucketType), N, L);
             }
+            timeRandomMap61B(createOpenAddressingMap(), N, L);
+            timeRandomMap61B(createCuckooMap(), N, L);
+            timeRandomMap61B(createSwissTableMap(), N, L);
+
+            // Every key below has the same hashCode(), so they all share one
+            // bucket; treeified buckets keep each operation O(log N)
+            System.out.println("\nInserting and looking up " + N + " colliding strings:");
+            for (Class<? extends Collection> bucketType : bucketTypes) {
+                timeCollidingMap61B(createBucketedMap(bucketType), N);
+            }
 
             System.out.print("\nWould you like to try more timed-tests? (y/n)");
             repeat = input.nextLine();
@@ -73,8 +92,20 @@ public class BucketsSpeedTest {
      */
     public static void timeRandomMap61B(Map61B<String, Integer> map, int N, int L) {
         try {
+            enableStats(map);
             double mapTime = insertRandom(map, N, L);
             System.out.printf(map.toString() + ": %.2f sec\n", mapTime);
+            if (printStats && map instanceof MyHashMap<String, Integer> m) {
+                // look up every key, and as many random strings, so there
+                // are probe lengths to report for both hits and misses
+                for (String key : m) {
+                    m.containsKey(key);
+                }
+                for (int i = 0; i < N; i++) {
+                    m.containsKey(StringUtils.randomString(L));
+                }
+                System.out.println(m.stats());
+            }
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
@@ -82,6 +113,44 @@ public class BucketsSpeedTest {
         }
     }
 
+    /**
+     * Returns time needed to put N strings that share one hash code into
+     * the map and then get each of them once.
+     */
+    public static double insertColliding(Map61B<String, Integer> map61B, int N) {
+        int blocks = Math.max(1, 32 - Integer.numberOfLeadingZeros(N - 1));
+        String[] keys = new String[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = StringUtils.collidingString(i, blocks);
+        }
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            map61B.put(keys[i], i);
+        }
+        for (int i = 0; i < N; i++) {
+            map61B.get(keys[i]);
+        }
+        return sw.elapsedTime();
+    }
+
+    /**
+     * Attempts to insert and look up N colliding strings in map,
+     * Prints time of the calls, otherwise
+     * Prints a nice message about the error
+     */
+    public static void timeCollidingMap61B(Map61B<String, Integer> map, int N) {
+        try {
+            enableStats(map);
+            double mapTime = insertColliding(map, N);
+            System.out.printf(map.toString() + ": %.2f sec\n", mapTime);
+            if (printStats && map instanceof MyHashMap<String, Integer> m) {
+                System.out.println(m.stats());
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Waits for the user on other side of Scanner
      * to enter a positive int,
@@ -100,6 +169,14 @@ public class BucketsSpeedTest {
         return ret;
     }
     /* ------------------------------- Private methods ------------------------------- */
+    /** Starts collecting statistics on MAP if it is a MyHashMap and they were asked for. */
+    private static void enableStats(Map61B<String, Integer> map) {
+        if (printStats && map instanceof MyHashMap<String, Integer> m) {
+            m.enableStats();
+        }
+    }
+
+
     /**
      * To be called after catching a StackOverflowError
      * Prints the error with corresponding N and L
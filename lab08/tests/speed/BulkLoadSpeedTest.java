@@ -0,0 +1,109 @@
+package speed;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+import hashmap.MyHashMap;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Times loading N entries into a MyHashMap that grows by doubling, one
+ * presized with withExpectedSize(), and one built with fromEntries(), and
+ * reports how much the heap grew at its peak during each load.
+ * <p>
+ * Peak heap is the sum of the peak usage of each heap memory pool since the
+ * load began, minus the heap in use before it. The pools need not peak at
+ * the same moment, so this is an upper bound. Run with a heap large enough
+ * for the chosen N, e.g. -Xmx16g for 50 million entries.
+ */
+public class BulkLoadSpeedTest {
+    /**
+     * Requests user input and times each way of loading a map. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program loads N distinct Integer keys into
+                 MyHashMaps as <Integer, Integer> pairs.
+                """);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # entries to load: ");
+            int N = waitForPositiveInt(input);
+            // box everything up front, so only the map's own allocations count
+            List<Map.Entry<Integer, Integer>> entries = new ArrayList<>(N);
+            for (int i = 0; i < N; i++) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(i, i));
+            }
+
+            measure("put() into new MyHashMap<>()", () -> {
+                MyHashMap<Integer, Integer> map = new MyHashMap<>();
+                for (Map.Entry<Integer, Integer> e : entries) {
+                    map.put(e.getKey(), e.getValue());
+                }
+                return map;
+            });
+            measure("put() into MyHashMap.withExpectedSize(N)", () -> {
+                MyHashMap<Integer, Integer> map = MyHashMap.withExpectedSize(N);
+                for (Map.Entry<Integer, Integer> e : entries) {
+                    map.put(e.getKey(), e.getValue());
+                }
+                return map;
+            });
+            measure("MyHashMap.fromEntries()", () -> MyHashMap.fromEntries(entries));
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Runs LOAD and prints its duration, peak heap growth and retained heap. */
+    private static void measure(String name, Supplier<MyHashMap<Integer, Integer>> load) {
+        long before = usedHeap();
+        for (MemoryPoolMXBean pool : heapPools()) {
+            pool.resetPeakUsage();
+        }
+        long start = System.nanoTime();
+        MyHashMap<Integer, Integer> map = load.get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%s: %.2f sec, peak heap +%d MB, retained +%d MB (%d entries)%n",
+                name, seconds, (peak - before) >> 20, retained >> 20, map.size());
+    }
+
+    /** Returns bytes of heap in use after a full collection. */
+    private static long usedHeap() {
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+}
@@ -0,0 +1,94 @@
+package speed;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+
+import hashmap.BoundedCache;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Replays a Zipfian stream of keys against a BoundedCache with each eviction
+ * policy, as a memo cache would see it: get the key, and put it on a miss.
+ * Reports the hit ratio, which is what matters under skewed traffic, and the
+ * time taken.
+ */
+public class CacheHitRatioSpeedTest {
+    /**
+     * Requests user input and prints the hit ratio of each policy. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program draws keys from a Zipfian distribution,
+                 where the k-th most popular key is requested with
+                 probability proportional to 1 / k^s, and replays them
+                 against bounded caches.
+                """);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # distinct keys: ");
+            int keys = waitForPositiveInt(input);
+            System.out.print("Enter the Zipf exponent s, times 100 (e.g. 99): ");
+            double s = waitForPositiveInt(input) / 100.0;
+            System.out.print("Enter cache size: ");
+            int size = waitForPositiveInt(input);
+            System.out.print("Enter # requests: ");
+            int requests = waitForPositiveInt(input);
+
+            int[] trace = zipfTrace(keys, s, requests, new Random(61));
+            for (BoundedCache.EvictionPolicy policy : BoundedCache.EvictionPolicy.values()) {
+                BoundedCache<Integer, Integer> cache = new BoundedCache<>(size, policy);
+                long start = System.nanoTime();
+                for (int key : trace) {
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-8s hit ratio %.4f, %d evictions, %.2f sec (%.1f Mop/s)%n",
+                        policy, cache.hitRatio(), cache.evictions(), seconds, requests / seconds / 1e6);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Returns N draws from a Zipfian distribution over KEYS keys with
+     * exponent S. Ranks are shuffled onto keys, so popularity is unrelated
+     * to the key's value and hash.
+     */
+    public static int[] zipfTrace(int keys, double s, int N, Random r) {
+        double[] cdf = new double[keys];
+        double sum = 0;
+        for (int k = 0; k < keys; k++) {
+            sum += 1 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        int[] keyOfRank = new int[keys];
+        for (int k = 0; k < keys; k++) {
+            keyOfRank[k] = k;
+        }
+        for (int k = keys - 1; k > 0; k--) {
+            int j = r.nextInt(k + 1);
+            int tmp = keyOfRank[k];
+            keyOfRank[k] = keyOfRank[j];
+            keyOfRank[j] = tmp;
+        }
+        int[] trace = new int[N];
+        for (int i = 0; i < N; i++) {
+            int rank = Arrays.binarySearch(cdf, r.nextDouble() * sum);
+            // binarySearch returns -(insertion point) - 1 when not found exactly
+            rank = rank < 0 ? -rank - 1 : rank;
+            trace[i] = keyOfRank[Math.min(rank, keys - 1)];
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,155 @@
+package speed;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import hashmap.ConcurrentMyHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Measures throughput of a mixed get/put workload for ConcurrentMyHashMap
+ * and for a MyHashMap behind one global lock, sweeping the thread count
+ * from 1 up to twice the number of available processors.
+ */
+public class ConcurrentThroughputSpeedTest {
+    /** How long each (map, thread count) pair runs, in milliseconds. */
+    private static final int RUN_MILLIS = 2000;
+
+    /**
+     * Requests user input and prints throughput for each thread count.
+     * ARGS is unused.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program runs a mixed workload of gets and puts
+                 on Integer keys from several threads at once.
+                """);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # distinct keys: ");
+            int N = waitForPositiveInt(input);
+            System.out.print("Enter percentage of operations that are puts: ");
+            int putPercent = Math.min(100, waitForPositiveInt(input));
+
+            int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+            System.out.printf("%8s %24s %24s%n", "threads", "ConcurrentMyHashMap", "locked MyHashMap");
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                double concurrent = throughput(new ConcurrentMyHashMap<>(), threads, N, putPercent);
+                double locked = throughput(new LockedMap<>(new MyHashMap<>()), threads, N, putPercent);
+                System.out.printf("%8d %18.2f Mop/s %18.2f Mop/s%n", threads, concurrent, locked);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Fills MAP with N keys, then runs THREADS threads doing random gets
+     * and puts for RUN_MILLIS. Returns millions of operations per second.
+     */
+    public static double throughput(Map61B<Integer, Integer> map, int threads,
+                                    int N, int putPercent) throws InterruptedException {
+        for (int i = 0; i < N; i++) {
+            map.put(i, i);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    Integer key = r.nextInt(N);
+                    if (r.nextInt(100) < putPercent) {
+                        map.put(key, key);
+                    } else {
+                        map.get(key);
+                    }
+                    count++;
+                }
+                ops.add(count);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / (RUN_MILLIS / 1000.0) / 1e6;
+    }
+
+    /** A Map61B that serializes every call on one lock, as callers do today. */
+    private static class LockedMap<K, V> implements Map61B<K, V> {
+        private final Map61B<K, V> map;
+
+        LockedMap(Map61B<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized void clear() {
+            map.clear();
+        }
+
+        @Override
+        public synchronized Set<K> keySet() {
+            return map.keySet();
+        }
+
+        @Override
+        public synchronized V remove(K key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return keySet().iterator();
+        }
+    }
+}
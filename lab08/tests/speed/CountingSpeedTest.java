@@ -0,0 +1,69 @@
+package speed;
+
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.MyHashMap;
+import hashmap.ObjectIntMap;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Times a word-frequency count done with a MyHashMap<String, Integer>,
+ * which boxes a new Integer for most updates, against an ObjectIntMap,
+ * which updates its int values in place.
+ */
+public class CountingSpeedTest {
+    /**
+     * Requests user input and times both counting maps. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program counts occurrences of N random Strings
+                 of length L in different types of maps.
+                """);
+        System.out.print("What would you like L to be?: ");
+        int L = waitForPositiveInt(input);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # strings to count: ");
+            int N = waitForPositiveInt(input);
+            String[] words = new String[N];
+            for (int i = 0; i < N; i++) {
+                words[i] = StringUtils.randomString(L);
+            }
+
+            System.out.printf("MyHashMap<String, Integer>: %.2f sec\n", countBoxed(words));
+            System.out.printf("ObjectIntMap<String>: %.2f sec\n", countPrimitive(words));
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Returns time needed to count WORDS with a MyHashMap. */
+    public static double countBoxed(String[] words) {
+        Stopwatch sw = new Stopwatch();
+        MyHashMap<String, Integer> counts = new MyHashMap<>();
+        for (String word : words) {
+            Integer count = counts.get(word);
+            counts.put(word, count == null ? 1 : count + 1);
+        }
+        return sw.elapsedTime();
+    }
+
+    /** Returns time needed to count WORDS with an ObjectIntMap. */
+    public static double countPrimitive(String[] words) {
+        Stopwatch sw = new Stopwatch();
+        ObjectIntMap<String> counts = new ObjectIntMap<>();
+        for (String word : words) {
+            counts.increment(word);
+        }
+        return sw.elapsedTime();
+    }
+}
@@ -7,6 +7,9 @@ import edu.princeton.cs.algs4.Stopwatch;
 import hashmap.Map61B;
 import hashmap.ULLMap;
 import hashmap.MyHashMap;
+import hashmap.OpenAddressingMap;
+import hashmap.CuckooHashMap;
+import hashmap.SwissTableMap;
 
 import static speed.InsertRandomSpeedTest.waitForPositiveInt;
 
@@ -38,6 +41,18 @@ public class InsertInOrderSpeedTest {
             timeInOrderMap61B(new MyHashMap<>(),
                     waitForPositiveInt(input));
 
+            System.out.print("\nEnter # strings to insert into OpenAddressingMap: ");
+            timeInOrderMap61B(new OpenAddressingMap<>(),
+                    waitForPositiveInt(input));
+
+            System.out.print("\nEnter # strings to insert into CuckooHashMap: ");
+            timeInOrderMap61B(new CuckooHashMap<>(),
+                    waitForPositiveInt(input));
+
+            System.out.print("\nEnter # strings to insert into SwissTableMap: ");
+            timeInOrderMap61B(new SwissTableMap<>(),
+                    waitForPositiveInt(input));
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeInOrderHashMap(new HashMap<>(),
                     waitForPositiveInt(input));
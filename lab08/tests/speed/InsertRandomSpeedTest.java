@@ -7,6 +7,9 @@ import edu.princeton.cs.algs4.Stopwatch;
 import hashmap.Map61B;
 import hashmap.ULLMap;
 import hashmap.MyHashMap;
+import hashmap.OpenAddressingMap;
+import hashmap.CuckooHashMap;
+import hashmap.SwissTableMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Josh Hug
@@ -38,6 +41,18 @@ public class InsertRandomSpeedTest {
             timeRandomMap61B(new MyHashMap<>(),
                     waitForPositiveInt(input), L);
 
+            System.out.print("\nEnter # strings to insert into OpenAddressingMap: ");
+            timeRandomMap61B(new OpenAddressingMap<>(),
+                    waitForPositiveInt(input), L);
+
+            System.out.print("\nEnter # strings to insert into CuckooHashMap: ");
+            timeRandomMap61B(new CuckooHashMap<>(),
+                    waitForPositiveInt(input), L);
+
+            System.out.print("\nEnter # strings to insert into SwissTableMap: ");
+            timeRandomMap61B(new SwissTableMap<>(),
+                    waitForPositiveInt(input), L);
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeRandomHashMap(new HashMap<>(),
                     waitForPositiveInt(input), L);
@@ -0,0 +1,106 @@
+package speed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Scanner;
+import java.util.stream.Stream;
+
+import hashmap.MappedStringLongMap;
+import hashmap.MyHashMap;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Compares the startup cost of rebuilding a MyHashMap<String, Long> against
+ * reopening a MappedStringLongMap that was built by an earlier run, and then
+ * times lookups in each.
+ */
+public class MappedMapSpeedTest {
+    /**
+     * Requests user input and times building, reopening and reading both
+     * maps. ARGS[0], if given, is the directory to keep the mapped map in;
+     * otherwise a temporary directory is used and deleted afterwards.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program builds a MyHashMap and a MappedStringLongMap
+                 of N random Strings of length L, reopens the mapped map
+                 from its files, and times N lookups in each.
+                """);
+        System.out.print("What would you like L to be?: ");
+        int L = waitForPositiveInt(input);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # strings to insert into the maps: ");
+            int N = waitForPositiveInt(input);
+            StringUtils.setSeed(61);
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+            Path dir = args.length > 0 ? Path.of(args[0]) : Files.createTempDirectory("mapped-map");
+
+            long start = System.nanoTime();
+            MyHashMap<String, Long> heapMap = MyHashMap.withExpectedSize(N);
+            for (int i = 0; i < N; i++) {
+                heapMap.put(keys[i], (long) i);
+            }
+            System.out.printf("Build MyHashMap<String, Long>: %.2f sec%n", seconds(start));
+
+            start = System.nanoTime();
+            try (MappedStringLongMap mapped = MappedStringLongMap.open(dir)) {
+                mapped.clear();
+                for (int i = 0; i < N; i++) {
+                    mapped.putLong(keys[i], i);
+                }
+            }
+            System.out.printf("Build and close MappedStringLongMap: %.2f sec%n", seconds(start));
+
+            start = System.nanoTime();
+            try (MappedStringLongMap mapped = MappedStringLongMap.open(dir)) {
+                System.out.printf("Reopen MappedStringLongMap: %.3f ms (%d keys)%n",
+                        seconds(start) * 1e3, mapped.size());
+
+                long sum = 0;
+                start = System.nanoTime();
+                for (String key : keys) {
+                    sum += heapMap.get(key);
+                }
+                System.out.printf("%d gets from MyHashMap: %.2f sec%n", N, seconds(start));
+                start = System.nanoTime();
+                for (String key : keys) {
+                    sum -= mapped.getLong(key, 0);
+                }
+                System.out.printf("%d getLongs from MappedStringLongMap: %.2f sec%n", N, seconds(start));
+                if (sum != 0) {
+                    System.out.println("The maps disagree!");
+                }
+            }
+            if (args.length == 0) {
+                delete(dir);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
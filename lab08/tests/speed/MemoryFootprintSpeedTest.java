@@ -0,0 +1,182 @@
+package speed;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.function.Supplier;
+
+import hashmap.*;
+
+import static hashmap.MyHashMapFactory.createBucketedMap;
+import static hashmap.MyHashMapFactory.createCuckooMap;
+import static hashmap.MyHashMapFactory.createOpenAddressingMap;
+import static hashmap.MyHashMapFactory.createSwissTableMap;
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Measures how much heap each Map61B retains per entry: MyHashMap with each
+ * bucket type, the other maps in the hashmap package, and java.util.HashMap
+ * as a baseline, at sizes from 1 up to N by powers of ten.
+ * <p>
+ * Each measurement builds enough maps of the given size to hold about N
+ * entries in total, so that small maps are measured over many copies, and
+ * divides the growth of the heap after a full collection by the number of
+ * entries. The keys and values are Integers boxed before the measurement
+ * and shared by every map, so only the maps' own tables, buckets and nodes
+ * are counted, along with each map's fixed overhead spread over its
+ * entries. The tables grow by doubling, so the bytes per entry of a map
+ * vary with where its size falls between two resizes.
+ * <p>
+ * Heap deltas are only as precise as System.gc() is thorough. A full
+ * collection may leave some dead objects in place rather than compact over
+ * them, which can make a footprint come out too small or even negative, so
+ * run with
+ * <pre>
+ *     java -XX:+UseSerialGC -XX:MarkSweepDeadRatio=0 -Xmx4g ... speed.MemoryFootprintSpeedTest
+ * </pre>
+ * and a heap a few times the largest footprint, as here for N = 1000000.
+ * Compare runs with -XX:-UseCompressedOops to see the cost of 8-byte
+ * references.
+ */
+public class MemoryFootprintSpeedTest {
+
+    /** Sizes above this are skipped for ULLMap, whose put() is linear. */
+    private static final int ULLMAP_MAX_SIZE = 1000;
+
+    /** The heap's memory pools, looked up once since the lookup itself allocates. */
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = new ArrayList<>();
+
+    /** The maps being measured, held in a field so that the JIT can't find them dead. */
+    private static Object[] maps;
+
+    /** A map to measure: how to fill one with the first n of the keys. */
+    private record Candidate(String name, int maxSize, Builder builder) {
+    }
+
+    private interface Builder {
+        Object build(Integer[] keys, int n);
+    }
+
+    /**
+     * Requests user input and prints a table of bytes per entry. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program fills maps with <Integer, Integer> pairs
+                 and reports the heap they retain per entry.
+                """);
+        System.out.println(ManagementFactory.getRuntimeMXBean().getVmName()
+                + " " + System.getProperty("java.vm.version"));
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                HEAP_POOLS.add(pool);
+            }
+        }
+        HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (hotSpot != null && !hotSpot.getVMOption("MarkSweepDeadRatio").getValue().equals("0")) {
+            System.out.println("Warning: without -XX:MarkSweepDeadRatio=0, results may be too small.");
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Class<? extends Collection> bucketType : List.of(
+                ArrayList.class, LinkedList.class, HashSet.class, Stack.class, ArrayDeque.class)) {
+            candidates.add(map61B(bucketType.getSimpleName() + " buckets",
+                    () -> createBucketedMap(bucketType)));
+        }
+        candidates.add(map61B("OpenAddressingMap", () -> createOpenAddressingMap()));
+        candidates.add(map61B("CuckooHashMap", () -> createCuckooMap()));
+        candidates.add(map61B("SwissTableMap", () -> createSwissTableMap()));
+        candidates.add(map61B("ConcurrentMyHashMap", ConcurrentMyHashMap::new));
+        candidates.add(map61B("AdaptiveMap", AdaptiveMap::new));
+        candidates.add(map61B("PersistentHashMap", PersistentHashMap::new));
+        candidates.add(new Candidate("ULLMap", ULLMAP_MAX_SIZE, (keys, n) -> fill(new ULLMap<>(), keys, n)));
+        candidates.add(new Candidate("java.util.HashMap", Integer.MAX_VALUE, (keys, n) -> {
+            Map<Integer, Integer> map = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                map.put(keys[i], keys[i]);
+            }
+            return map;
+        }));
+
+        String repeat;
+        do {
+            System.out.print("\nEnter N, the largest size and the entries per measurement: ");
+            int N = waitForPositiveInt(input);
+            Integer[] keys = new Integer[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = i;
+            }
+            List<Integer> sizes = new ArrayList<>();
+            for (long n = 1; n <= N; n *= 10) {
+                sizes.add((int) n);
+            }
+
+            System.out.printf("%n%-24s", "bytes per entry, size:");
+            for (int n : sizes) {
+                System.out.printf("%10d", n);
+            }
+            System.out.println();
+            for (Candidate c : candidates) {
+                System.out.printf("%-24s", c.name());
+                for (int n : sizes) {
+                    if (n > c.maxSize()) {
+                        System.out.printf("%10s", "-");
+                    } else {
+                        System.out.printf("%10.1f", bytesPerEntry(c.builder(), keys, n, N / n));
+                    }
+                }
+                System.out.println();
+            }
+
+            System.out.print("\nWould you like to try more tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    private static Candidate map61B(String name, Supplier<Map61B<Integer, Integer>> create) {
+        return new Candidate(name, Integer.MAX_VALUE, (keys, n) -> fill(create.get(), keys, n));
+    }
+
+    private static Map61B<Integer, Integer> fill(Map61B<Integer, Integer> map, Integer[] keys, int n) {
+        for (int i = 0; i < n; i++) {
+            map.put(keys[i], keys[i]);
+        }
+        return map;
+    }
+
+    /** Builds COPIES maps of the first N keys, and returns the heap they retain per entry. */
+    private static double bytesPerEntry(Builder builder, Integer[] keys, int n, int copies) {
+        maps = new Object[copies];
+        long before = usedHeap();
+        for (int i = 0; i < copies; i++) {
+            maps[i] = builder.build(keys, n);
+        }
+        long after = usedHeap();
+        maps = null;
+        return (double) (after - before) / ((long) n * copies);
+    }
+
+    /** Returns bytes of heap in use after full collections have stopped freeing any. */
+    private static long usedHeap() {
+        long used = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            System.gc();
+            long now = 0;
+            for (MemoryPoolMXBean pool : HEAP_POOLS) {
+                now += pool.getUsage().getUsed();
+            }
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
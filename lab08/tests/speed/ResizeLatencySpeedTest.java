@@ -0,0 +1,86 @@
+package speed;
+
+import java.util.Arrays;
+import java.util.Scanner;
+
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/**
+ * Compares the latency of individual put calls for a MyHashMap that resizes
+ * all at once against one that resizes incrementally. Total time is about
+ * the same, but the stop-the-world map shows its resizes in the tail.
+ */
+public class ResizeLatencySpeedTest {
+    /** Latency percentiles to report. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+
+    /**
+     * Requests user input and reports put latency percentiles for both
+     * resize modes. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program inserts random Strings of length L
+                 into MyHashMaps as <String, Integer> pairs and reports
+                 the latency of each put.
+                """);
+        System.out.print("What would you like L to be?: ");
+        int L = waitForPositiveInt(input);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = waitForPositiveInt(input);
+
+            printLatencies("MyHashMap, stop-the-world resize",
+                    putLatencies(new MyHashMap<>(16, 0.75, false), N, L));
+            printLatencies("MyHashMap, incremental resize",
+                    putLatencies(new MyHashMap<>(16, 0.75, true), N, L));
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Puts N random strings of length L into the map and returns the
+     * duration of each put in nanoseconds, sorted in increasing order.
+     */
+    public static long[] putLatencies(Map61B<String, Integer> map61B, int N, int L) {
+        // generate keys first so that only the put itself is timed
+        StringUtils.setSeed(61);
+        String[] keys = new String[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = StringUtils.randomString(L);
+        }
+        long[] latencies = new long[N];
+        for (int i = 0; i < N; i++) {
+            long start = System.nanoTime();
+            map61B.put(keys[i], i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /** Prints the chosen percentiles of the sorted LATENCIES. */
+    private static void printLatencies(String name, long[] latencies) {
+        long total = 0;
+        for (long l : latencies) {
+            total += l;
+        }
+        System.out.printf("%s: total %.2f sec%n", name, total / 1e9);
+        for (double p : PERCENTILES) {
+            int ix = (int) Math.ceil(p / 100 * latencies.length) - 1;
+            ix = Math.max(0, Math.min(ix, latencies.length - 1));
+            System.out.printf("    p%-6s %10.1f us%n", p, latencies[ix] / 1e3);
+        }
+    }
+}
@@ -68,6 +68,19 @@ public class StringUtils {
         }
     }
 
+    /**
+     * Returns the Ith of 2^BLOCKS distinct strings that all share one
+     * hashCode(). "Aa" and "BB" have the same String hash, so any
+     * sequence of BLOCKS such pairs collides with every other.
+     */
+    public static String collidingString(int i, int blocks) {
+        StringBuilder sb = new StringBuilder(2 * blocks);
+        for (int b = 0; b < blocks; b++) {
+            sb.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+
     /** Returns a string of all 'a' of length LEN. */
     private static String allAs(int len) {
         StringBuilder sb = new StringBuilder();
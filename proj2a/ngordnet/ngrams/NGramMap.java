@@ -40,15 +40,8 @@ public class NGramMap {
             double count = wordsFile.readDouble();
             wordsFile.readLine();
 
-            if (wordsMap.get(word) == null) {
-                TimeSeries ts = new TimeSeries();
-                ts.put(year, count);
-                wordsMap.put(word, ts);
-            } else {
-                TimeSeries presentTS = wordsMap.get(word);
-                presentTS.put(year, count);
-                wordsMap.put(word, presentTS);
-            }
+            // one lookup per line, instead of a get() and a put()
+            wordsMap.computeIfAbsent(word, w -> new TimeSeries()).put(year, count);
         }
 
         while (countsFile.hasNextLine()) {